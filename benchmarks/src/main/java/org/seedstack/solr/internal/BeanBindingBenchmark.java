@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.seedstack.seed.core.internal.transaction.TransactionalClassProxy;
+import org.seedstack.solr.SolrConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bean binding when adding and querying beans through the transaction-aware proxy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BeanBindingBenchmark {
+    private final SolrQuery solrQuery = new SolrQuery("*:*");
+    private final List<BenchmarkBean> beans = new ArrayList<>();
+    private SolrClient proxyClient;
+    private SolrTransactionHandler solrTransactionHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SolrClientLink solrClientLink = new SolrClientLink();
+        proxyClient = TransactionalClassProxy.create(SolrClient.class, solrClientLink);
+        solrTransactionHandler = new SolrTransactionHandler(solrClientLink, "client", new StubSolrClient(), new SolrConfig.ClientConfig(), null, null, new NoOpSolrMetrics());
+        solrTransactionHandler.doCreateTransaction();
+
+        for (int i = 0; i < 10; i++) {
+            BenchmarkBean bean = new BenchmarkBean();
+            bean.setId(String.valueOf(i));
+            bean.setName("name" + i);
+            bean.setPrice(i);
+            bean.setTags(Arrays.asList("a", "b"));
+            beans.add(bean);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        solrTransactionHandler.doCommitTransaction(solrTransactionHandler.getCurrentTransaction());
+    }
+
+    @Benchmark
+    public UpdateResponse addBeans() throws Exception {
+        return proxyClient.addBeans(beans);
+    }
+
+    @Benchmark
+    public List<BenchmarkBean> queryBeans() throws Exception {
+        return proxyClient.query(solrQuery).getBeans(BenchmarkBean.class);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default reflective binder of SolrJ with the method handle based binder of the add-on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BinderBenchmark {
+    @Param({"DEFAULT", "FAST"})
+    private String binderType;
+    private DocumentObjectBinder binder;
+    private final BenchmarkBean bean = new BenchmarkBean();
+    private final SolrDocumentList documents = new SolrDocumentList();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        binder = "FAST".equals(binderType) ? FastDocumentObjectBinder.INSTANCE : new DocumentObjectBinder();
+
+        bean.setId("1");
+        bean.setName("name");
+        bean.setPrice(1);
+        bean.setTags(Arrays.asList("a", "b"));
+
+        for (int i = 0; i < 100; i++) {
+            SolrDocument document = new SolrDocument();
+            document.setField("id", String.valueOf(i));
+            document.setField("name", "name" + i);
+            document.setField("price", (double) i);
+            document.setField("tags", Arrays.asList("a", "b"));
+            documents.add(document);
+        }
+    }
+
+    @Benchmark
+    public SolrInputDocument toSolrInputDocument() {
+        return binder.toSolrInputDocument(bean);
+    }
+
+    @Benchmark
+    public void getBeans(Blackhole blackhole) {
+        List<BenchmarkBean> beans = binder.getBeans(BenchmarkBean.class, documents);
+        blackhole.consume(beans);
+    }
+}
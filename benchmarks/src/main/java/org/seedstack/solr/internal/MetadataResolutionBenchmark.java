@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.seedstack.seed.transaction.Transactional;
+import org.seedstack.seed.transaction.spi.TransactionMetadata;
+import org.seedstack.solr.Solr;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the resolution of Solr transaction metadata, which happens on each intercepted transactional method.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetadataResolutionBenchmark {
+    private final SolrTransactionMetadataResolver resolver = new SolrTransactionMetadataResolver(null, Collections.<String>emptySet());
+    private final TransactionMetadata defaults = new TransactionMetadata();
+    private MethodInvocation annotatedInvocation;
+    private MethodInvocation notAnnotatedInvocation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        annotatedInvocation = new StubMethodInvocation(MetadataResolutionBenchmark.class.getDeclaredMethod("annotated"));
+        notAnnotatedInvocation = new StubMethodInvocation(MetadataResolutionBenchmark.class.getDeclaredMethod("notAnnotated"));
+    }
+
+    @Benchmark
+    public TransactionMetadata annotatedMethod() {
+        return resolver.resolve(annotatedInvocation, defaults);
+    }
+
+    @Benchmark
+    public TransactionMetadata notAnnotatedMethod() {
+        return resolver.resolve(notAnnotatedInvocation, defaults);
+    }
+
+    @Transactional
+    @Solr("client")
+    void annotated() {
+        // benchmark target
+    }
+
+    @Transactional
+    void notAnnotated() {
+        // benchmark target
+    }
+
+    private static class StubMethodInvocation implements MethodInvocation {
+        private final Method method;
+
+        private StubMethodInvocation(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return new Object[0];
+        }
+
+        @Override
+        public Object proceed() throws Throwable {
+            return null;
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public AccessibleObject getStaticPart() {
+            return method;
+        }
+    }
+}
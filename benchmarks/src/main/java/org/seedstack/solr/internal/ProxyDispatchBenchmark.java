@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.seedstack.seed.core.internal.transaction.TransactionalClassProxy;
+import org.seedstack.solr.SolrConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a query issued through the transaction-aware proxy with the same query issued on the named client.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProxyDispatchBenchmark {
+    private final SolrQuery solrQuery = new SolrQuery("name:Gerard");
+    private SolrClient namedClient;
+    private SolrClient proxyClient;
+    private SolrTransactionHandler solrTransactionHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SolrClientLink solrClientLink = new SolrClientLink();
+        namedClient = new StubSolrClient();
+        proxyClient = TransactionalClassProxy.create(SolrClient.class, solrClientLink);
+        solrTransactionHandler = new SolrTransactionHandler(solrClientLink, "client", namedClient, new SolrConfig.ClientConfig(), null, null, new NoOpSolrMetrics());
+        solrTransactionHandler.doCreateTransaction();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        solrTransactionHandler.doCommitTransaction(solrTransactionHandler.getCurrentTransaction());
+    }
+
+    @Benchmark
+    public QueryResponse namedClientQuery() throws Exception {
+        return namedClient.query(solrQuery);
+    }
+
+    @Benchmark
+    public QueryResponse proxyClientQuery() throws Exception {
+        return proxyClient.query(solrQuery);
+    }
+}
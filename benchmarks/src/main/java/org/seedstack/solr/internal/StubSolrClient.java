@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * In-memory Solr client answering every request with the same canned response, so benchmarks only measure the code
+ * of the add-on.
+ */
+class StubSolrClient extends SolrClient {
+    private final NamedList<Object> response = new NamedList<>();
+
+    StubSolrClient() {
+        NamedList<Object> responseHeader = new SimpleOrderedMap<>();
+        responseHeader.add("status", 0);
+        responseHeader.add("QTime", 1);
+        response.add("responseHeader", responseHeader);
+
+        SolrDocumentList documents = new SolrDocumentList();
+        for (int i = 0; i < 10; i++) {
+            SolrDocument document = new SolrDocument();
+            document.setField("id", String.valueOf(i));
+            document.setField("name", "name" + i);
+            document.setField("price", (double) i);
+            document.setField("tags", Arrays.asList("a", "b"));
+            documents.add(document);
+        }
+        documents.setNumFound(documents.size());
+        response.add("response", documents);
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) {
+        return response;
+    }
+
+    public void shutdown() {
+        // nothing to do
+    }
+
+    public void close() throws IOException {
+        // nothing to do
+    }
+}
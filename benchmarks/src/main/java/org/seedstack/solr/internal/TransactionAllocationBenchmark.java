@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.seedstack.solr.SolrConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the allocations of the transaction context. Run it with the GC profiler (this class main method or the
+ * {@code -prof gc} option): in steady state, {@code gc.alloc.rate.norm} must stay at zero bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionAllocationBenchmark {
+    private SolrTransactionHandler solrTransactionHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SolrConfig.ClientConfig clientConfig = new SolrConfig.ClientConfig();
+        clientConfig.transaction().setCommitMode(SolrConfig.ClientConfig.CommitMode.NONE);
+        solrTransactionHandler = new SolrTransactionHandler(new SolrClientLink(), "client", new StubSolrClient(), clientConfig, null, null, new NoOpSolrMetrics());
+    }
+
+    @Benchmark
+    public SolrClient topLevelTransaction() {
+        SolrClient transaction = solrTransactionHandler.doCreateTransaction();
+        solrTransactionHandler.doCommitTransaction(transaction);
+        return transaction;
+    }
+
+    @Benchmark
+    public SolrClient nestedTransactions() {
+        SolrClient outer = solrTransactionHandler.doCreateTransaction();
+        SolrClient inner = solrTransactionHandler.doCreateTransaction();
+        solrTransactionHandler.doCommitTransaction(inner);
+        solrTransactionHandler.doCommitTransaction(outer);
+        return outer;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrInputDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.seedstack.seed.transaction.spi.TransactionMetadata;
+import org.seedstack.solr.SolrConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of a complete transaction lifecycle, as driven by the transaction manager, around a single
+ * document addition.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransactionBenchmark {
+    private final TransactionMetadata transactionMetadata = new TransactionMetadata();
+    private final SolrInputDocument document = new SolrInputDocument();
+    private SolrTransactionHandler solrTransactionHandler;
+
+    @Param({"HARD", "NONE"})
+    public SolrConfig.ClientConfig.CommitMode commitMode;
+
+    @Param({"false", "true"})
+    public boolean bufferUpdates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SolrConfig.ClientConfig clientConfig = new SolrConfig.ClientConfig();
+        clientConfig.transaction()
+                .setCommitMode(commitMode)
+                .setBufferUpdates(bufferUpdates);
+        solrTransactionHandler = new SolrTransactionHandler(new SolrClientLink(), "client", new StubSolrClient(), clientConfig, null, null, new NoOpSolrMetrics());
+        transactionMetadata.setResource("client");
+        document.setField("id", "1");
+        document.setField("name", "Gerard");
+    }
+
+    @Benchmark
+    public SolrClient emptyTransaction() {
+        solrTransactionHandler.doInitialize(transactionMetadata);
+        SolrClient transaction = solrTransactionHandler.doCreateTransaction();
+        solrTransactionHandler.doBeginTransaction(transaction);
+        solrTransactionHandler.doCommitTransaction(transaction);
+        solrTransactionHandler.doReleaseTransaction(transaction);
+        solrTransactionHandler.doCleanup();
+        return transaction;
+    }
+
+    @Benchmark
+    public SolrClient singleAddTransaction() throws Exception {
+        solrTransactionHandler.doInitialize(transactionMetadata);
+        SolrClient transaction = solrTransactionHandler.doCreateTransaction();
+        solrTransactionHandler.doBeginTransaction(transaction);
+        transaction.add(document);
+        solrTransactionHandler.doCommitTransaction(transaction);
+        solrTransactionHandler.doReleaseTransaction(transaction);
+        solrTransactionHandler.doCleanup();
+        return transaction;
+    }
+}
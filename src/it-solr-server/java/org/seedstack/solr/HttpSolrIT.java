@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.junit.Test;
+import org.seedstack.seed.it.AbstractSeedIT;
+import org.seedstack.seed.transaction.Transactional;
+import org.seedstack.solr.fixtures.Person;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests of the HTTP-based clients against a real Solr server, run with the solr-server Maven profile only.
+ */
+public class HttpSolrIT extends AbstractSeedIT {
+    @Inject
+    SolrClient solrClient;
+
+    @Inject
+    @Named("http1")
+    SolrClient httpSolrClient;
+
+    @Inject
+    @Named("lb1")
+    SolrClient lbSolrClient;
+
+    @Test
+    public void index_and_query_through_http_clients() throws SolrServerException, IOException {
+        addDocuments();
+        try {
+            assertThat(httpSolrClient.query(new SolrQuery("name:Gerard")).getResults().getNumFound()).isEqualTo(1);
+            assertThat(lbSolrClient.query(new SolrQuery("name:Sarah")).getResults().getNumFound()).isEqualTo(1);
+        } finally {
+            clean();
+        }
+    }
+
+    @Transactional
+    @Solr("http1")
+    protected void clean() throws SolrServerException, IOException {
+        solrClient.deleteByQuery("*:*");
+    }
+
+    @Transactional
+    @Solr("http1")
+    protected void addDocuments() throws SolrServerException, IOException {
+        Person person1 = new Person();
+        person1.setId("1");
+        person1.setName("Gerard");
+
+        Person person2 = new Person();
+        person2.setId("2");
+        person2.setName("Sarah");
+
+        solrClient.addBeans(Arrays.asList(person1, person2));
+    }
+}
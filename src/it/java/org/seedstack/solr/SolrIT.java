@@ -17,6 +17,7 @@ import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocumentList;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
+import org.seedstack.seed.SeedException;
 import org.seedstack.seed.it.AbstractSeedIT;
 import org.seedstack.solr.fixtures.Person;
 import org.seedstack.seed.transaction.Transactional;
@@ -25,7 +26,11 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -37,6 +42,21 @@ public class SolrIT extends AbstractSeedIT {
     @Named("client1")
     SolrClient solrClient1;
 
+    @Inject
+    @Named("client2")
+    SolrClient solrClient2;
+
+    @Inject
+    @Named("client1")
+    SolrStreamer solrStreamer1;
+
+    @Inject
+    @Named("client1")
+    AsyncSolrClient asyncSolrClient1;
+
+    @Inject
+    SolrScatterGather solrScatterGather;
+
     @Test
     public void solr_client_is_injected() {
         assertThat(solrClient).isNotNull();
@@ -76,12 +96,91 @@ public class SolrIT extends AbstractSeedIT {
         }
     }
 
-    @Transactional
+    @Test
+    public void stream_documents_with_cursor() throws SolrServerException, IOException {
+        addDocuments1();
+
+        try (Stream<Person> persons = solrStreamer1.stream(new SolrQuery("*:*"), Person.class)) {
+            assertThat(persons.map(Person::getName).collect(Collectors.toList())).containsExactly("Gerard", "Sarah");
+        } finally {
+            clean1();
+        }
+    }
+
+    @Test
+    public void query_asynchronously() throws Exception {
+        addDocuments1();
+
+        try {
+            QueryResponse queryResponse = asyncSolrClient1.query(new SolrQuery("name:Sarah")).get(10, TimeUnit.SECONDS);
+            assertThat(queryResponse.getResults().getNumFound()).isEqualTo(1);
+        } finally {
+            clean1();
+        }
+    }
+
+    @Test
+    public void scatter_gather_query_on_two_clients() throws SolrServerException, IOException {
+        addDocuments1();
+        try {
+            addDocuments2();
+
+            try {
+                SolrScatterGatherResult result = solrScatterGather.query(new SolrQuery("*:*").setSort("id", SolrQuery.ORDER.asc).setRows(3), Arrays.asList("client1", "client2"));
+                assertThat(result.isPartial()).isFalse();
+                assertThat(result.getResults().getNumFound()).isEqualTo(4);
+                assertThat(result.getResults()).extracting(document -> document.getFieldValue("id")).containsExactly("1", "1", "2");
+            } finally {
+                clean2();
+            }
+        } finally {
+            clean1();
+        }
+    }
+
+    @Test
+    public void update_in_read_only_transaction_is_rejected() throws SolrServerException, IOException {
+        try {
+            read_only_add();
+            Assertions.fail("update should have been rejected");
+        } catch (SeedException e) {
+            assertThat(solrClient1.query(new SolrQuery("*:*")).getResults().getNumFound()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void nested_transaction_of_another_client_is_not_joined() throws SolrServerException, IOException {
+        add_documents2_in_transaction1();
+        try {
+            assertThat(solrClient1.query(new SolrQuery("*:*")).getResults().getNumFound()).isEqualTo(0);
+            assertThat(solrClient2.query(new SolrQuery("*:*")).getResults().getNumFound()).isEqualTo(2);
+        } finally {
+            clean2();
+        }
+    }
+
+    @Transactional(readOnly = true)
     @Solr("client1")
     protected QueryResponse transactional_multicore_query() throws SolrServerException, IOException {
         return solrClient.query(new SolrQuery("{!join from=id to=id fromIndex=core1}name:Gerard"));
     }
 
+    @Transactional(readOnly = true)
+    @Solr("client1")
+    protected void read_only_add() throws SolrServerException, IOException {
+        Person person = new Person();
+        person.setId("1");
+        person.setName("Gerard");
+
+        solrClient.addBean(person);
+    }
+
+    @Transactional
+    @Solr("client1")
+    protected void add_documents2_in_transaction1() throws SolrServerException, IOException {
+        addDocuments2();
+    }
+
     @Transactional
     @Solr("client1")
     protected void clean1() throws SolrServerException, IOException {
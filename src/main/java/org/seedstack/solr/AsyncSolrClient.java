@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.SolrParams;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous facade of a configured Solr client. Requests are executed outside of any transaction, on the bounded
+ * executor of the client (or on virtual threads when enabled and available). A request taking longer than its timeout
+ * completes exceptionally with a {@link java.util.concurrent.TimeoutException}. Cancelling the returned future, or
+ * its timeout, interrupts the thread executing the request. Inject it with the {@link javax.inject.Named} qualifier
+ * of the corresponding client.
+ */
+public interface AsyncSolrClient {
+    /**
+     * Queries the default collection with the default timeout of the client.
+     *
+     * @param params the query parameters.
+     * @return the future response.
+     */
+    CompletableFuture<QueryResponse> query(SolrParams params);
+
+    /**
+     * Queries the specified collection with the default timeout of the client.
+     *
+     * @param collection the collection to query.
+     * @param params     the query parameters.
+     * @return the future response.
+     */
+    CompletableFuture<QueryResponse> query(String collection, SolrParams params);
+
+    /**
+     * Queries the specified collection with a specific timeout.
+     *
+     * @param collection the collection to query.
+     * @param params     the query parameters.
+     * @param timeout    the timeout, zero meaning no timeout.
+     * @param unit       the unit of the timeout.
+     * @return the future response.
+     */
+    CompletableFuture<QueryResponse> query(String collection, SolrParams params, long timeout, TimeUnit unit);
+
+    /**
+     * Adds documents to the default collection with the default timeout of the client.
+     *
+     * @param documents the documents to add.
+     * @return the future response.
+     */
+    CompletableFuture<UpdateResponse> add(Collection<SolrInputDocument> documents);
+
+    /**
+     * Adds documents to the specified collection with the default timeout of the client.
+     *
+     * @param collection the collection to update.
+     * @param documents  the documents to add.
+     * @return the future response.
+     */
+    CompletableFuture<UpdateResponse> add(String collection, Collection<SolrInputDocument> documents);
+
+    /**
+     * Adds documents to the specified collection with a specific timeout.
+     *
+     * @param collection the collection to update.
+     * @param documents  the documents to add.
+     * @param timeout    the timeout, zero meaning no timeout.
+     * @param unit       the unit of the timeout.
+     * @return the future response.
+     */
+    CompletableFuture<UpdateResponse> add(String collection, Collection<SolrInputDocument> documents, long timeout, TimeUnit unit);
+
+    /**
+     * Deletes the documents matching a query from the default collection with the default timeout of the client.
+     *
+     * @param query the query matching the documents to delete.
+     * @return the future response.
+     */
+    CompletableFuture<UpdateResponse> deleteByQuery(String query);
+
+    /**
+     * Deletes the documents matching a query from the specified collection with the default timeout of the client.
+     *
+     * @param collection the collection to update.
+     * @param query      the query matching the documents to delete.
+     * @return the future response.
+     */
+    CompletableFuture<UpdateResponse> deleteByQuery(String collection, String query);
+
+    /**
+     * Deletes the documents matching a query from the specified collection with a specific timeout.
+     *
+     * @param collection the collection to update.
+     * @param query      the query matching the documents to delete.
+     * @param timeout    the timeout, zero meaning no timeout.
+     * @param unit       the unit of the timeout.
+     * @return the future response.
+     */
+    CompletableFuture<UpdateResponse> deleteByQuery(String collection, String query, long timeout, TimeUnit unit);
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * Background indexer of a configured Solr client. Documents submitted from any thread are queued and sent to Solr in
+ * batches by a pool of worker threads, outside of any transaction. Inject it with the {@link javax.inject.Named}
+ * qualifier of the corresponding client.
+ */
+public interface SolrBulkIndexer {
+    /**
+     * Queues a document for indexing.
+     *
+     * @param document the document to index.
+     */
+    void add(SolrInputDocument document);
+
+    /**
+     * Queues a document for indexing, with a callback invoked if it cannot be indexed.
+     *
+     * @param document        the document to index.
+     * @param failureCallback the callback invoked on failure.
+     */
+    void add(SolrInputDocument document, FailureCallback failureCallback);
+
+    /**
+     * Queues a bean annotated with {@link org.apache.solr.client.solrj.beans.Field} for indexing.
+     *
+     * @param bean the bean to index.
+     */
+    void addBean(Object bean);
+
+    /**
+     * Queues a bean annotated with {@link org.apache.solr.client.solrj.beans.Field} for indexing, with a callback
+     * invoked if it cannot be indexed.
+     *
+     * @param bean            the bean to index.
+     * @param failureCallback the callback invoked on failure.
+     */
+    void addBean(Object bean, FailureCallback failureCallback);
+
+    /**
+     * Blocks until all the documents queued so far have been sent to Solr.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    void flush() throws InterruptedException;
+
+    /**
+     * @return the number of documents queued or being sent.
+     */
+    long getPendingCount();
+
+    /**
+     * @return the number of documents successfully sent.
+     */
+    long getIndexedCount();
+
+    /**
+     * @return the number of documents that could not be indexed.
+     */
+    long getFailedCount();
+
+    /**
+     * @return the number of documents dropped because the queue was full.
+     */
+    long getDroppedCount();
+
+    /**
+     * Callback notified when a document cannot be indexed.
+     */
+    @FunctionalInterface
+    interface FailureCallback {
+        /**
+         * @param document  the document that was not indexed.
+         * @param exception the cause of the failure.
+         */
+        void onFailure(SolrInputDocument document, Exception exception);
+    }
+}
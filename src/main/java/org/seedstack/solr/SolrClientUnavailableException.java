@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import org.apache.solr.client.solrj.SolrServerException;
+
+/**
+ * Thrown without contacting Solr when the circuit breaker of a client is open or when its bulkhead has no capacity
+ * left. Being a {@link SolrServerException}, it reaches the {@link SolrExceptionHandler} of the client like any
+ * other Solr failure when thrown inside a transaction.
+ */
+public class SolrClientUnavailableException extends SolrServerException {
+    private static final long serialVersionUID = 1L;
+    private final String clientName;
+    private final Reason reason;
+
+    public SolrClientUnavailableException(String clientName, Reason reason) {
+        super(String.format("Solr client %s is unavailable (%s)", clientName, reason));
+        this.clientName = clientName;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the name of the unavailable client.
+     */
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * @return the reason why the request was rejected.
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    public enum Reason {
+        /**
+         * Too many recent requests failed or were too slow.
+         */
+        CIRCUIT_OPEN,
+        /**
+         * The maximum number of concurrent requests was reached.
+         */
+        BULKHEAD_FULL
+    }
+}
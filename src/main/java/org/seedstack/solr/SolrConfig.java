@@ -7,9 +7,12 @@
  */
 package org.seedstack.solr;
 
-import org.hibernate.validator.constraints.NotEmpty;
 import org.seedstack.coffig.Config;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.util.Collections;
 import java.util.HashMap;
@@ -20,7 +23,11 @@ import java.util.Set;
 @Config("solr")
 public class SolrConfig {
     private Map<String, ClientConfig> clients = new HashMap<>();
+    private Map<String, ConnectionPoolConfig> connectionPools = new HashMap<>();
     private String defaultClient;
+    private Class<? extends SolrMetrics> metrics;
+    private boolean parallelStartup = false;
+    private Class<? extends SolrTransactionListener> transactionListener;
 
     public Map<String, ClientConfig> getClients() {
         return Collections.unmodifiableMap(clients);
@@ -31,6 +38,15 @@ public class SolrConfig {
         return this;
     }
 
+    public Map<String, ConnectionPoolConfig> getConnectionPools() {
+        return Collections.unmodifiableMap(connectionPools);
+    }
+
+    public SolrConfig addConnectionPool(String name, ConnectionPoolConfig config) {
+        this.connectionPools.put(name, config);
+        return this;
+    }
+
     public String getDefaultClient() {
         return defaultClient;
     }
@@ -40,16 +56,134 @@ public class SolrConfig {
         return this;
     }
 
+    public Class<? extends SolrMetrics> getMetrics() {
+        return metrics;
+    }
+
+    public SolrConfig setMetrics(Class<? extends SolrMetrics> metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public boolean isParallelStartup() {
+        return parallelStartup;
+    }
+
+    public SolrConfig setParallelStartup(boolean parallelStartup) {
+        this.parallelStartup = parallelStartup;
+        return this;
+    }
+
+    public Class<? extends SolrTransactionListener> getTransactionListener() {
+        return transactionListener;
+    }
+
+    public SolrConfig setTransactionListener(Class<? extends SolrTransactionListener> transactionListener) {
+        this.transactionListener = transactionListener;
+        return this;
+    }
+
+    public static class ConnectionPoolConfig {
+        @Min(1)
+        private int maxTotalConnections = 128;
+        @Min(1)
+        private int maxConnectionsPerRoute = 32;
+        @Min(1)
+        private int keepAlive = 30000;
+        @Min(1)
+        private int idleTimeout = 60000;
+        @Min(1)
+        private int evictionInterval = 5000;
+        private boolean tcpNoDelay = true;
+        private Integer socketBufferSize;
+
+        public int getMaxTotalConnections() {
+            return maxTotalConnections;
+        }
+
+        public ConnectionPoolConfig setMaxTotalConnections(int maxTotalConnections) {
+            this.maxTotalConnections = maxTotalConnections;
+            return this;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public ConnectionPoolConfig setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        public int getKeepAlive() {
+            return keepAlive;
+        }
+
+        public ConnectionPoolConfig setKeepAlive(int keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        public int getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public ConnectionPoolConfig setIdleTimeout(int idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public int getEvictionInterval() {
+            return evictionInterval;
+        }
+
+        public ConnectionPoolConfig setEvictionInterval(int evictionInterval) {
+            this.evictionInterval = evictionInterval;
+            return this;
+        }
+
+        public boolean isTcpNoDelay() {
+            return tcpNoDelay;
+        }
+
+        public ConnectionPoolConfig setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        public Integer getSocketBufferSize() {
+            return socketBufferSize;
+        }
+
+        public ConnectionPoolConfig setSocketBufferSize(Integer socketBufferSize) {
+            this.socketBufferSize = socketBufferSize;
+            return this;
+        }
+    }
+
     public static class ClientConfig {
         // all
         @NotNull
         private SolrClientType type = SolrClientType.HTTP;
-        @NotEmpty
+        private StartupMode startup = StartupMode.LAZY;
         private Set<String> urls = new HashSet<>();
         private HttpClientConfig http = new HttpClientConfig();
         private LBHttpClientConfig lbHttp = new LBHttpClientConfig();
         private CloudClientConfig cloud = new CloudClientConfig();
+        private ConcurrentUpdateClientConfig concurrentUpdate = new ConcurrentUpdateClientConfig();
+        private EmbeddedClientConfig embedded = new EmbeddedClientConfig();
+        private TransactionConfig transaction = new TransactionConfig();
+        private BulkConfig bulk = new BulkConfig();
+        private QueryCacheConfig queryCache = new QueryCacheConfig();
+        private StreamConfig stream = new StreamConfig();
+        private AsyncConfig async = new AsyncConfig();
+        private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+        private BulkheadConfig bulkhead = new BulkheadConfig();
         private Class<? extends SolrExceptionHandler> exceptionHandler;
+        private RequestWriterType requestWriter;
+        private ResponseParserType responseParser;
+        private String connectionPool;
+        private boolean fastBinding = false;
 
         public SolrClientType getType() {
             return type;
@@ -60,6 +194,15 @@ public class SolrConfig {
             return this;
         }
 
+        public StartupMode getStartup() {
+            return startup;
+        }
+
+        public ClientConfig setStartup(StartupMode startup) {
+            this.startup = startup;
+            return this;
+        }
+
         public Set<String> getUrls() {
             return urls;
         }
@@ -78,6 +221,42 @@ public class SolrConfig {
             return this;
         }
 
+        public RequestWriterType getRequestWriter() {
+            return requestWriter;
+        }
+
+        public ClientConfig setRequestWriter(RequestWriterType requestWriter) {
+            this.requestWriter = requestWriter;
+            return this;
+        }
+
+        public ResponseParserType getResponseParser() {
+            return responseParser;
+        }
+
+        public ClientConfig setResponseParser(ResponseParserType responseParser) {
+            this.responseParser = responseParser;
+            return this;
+        }
+
+        public String getConnectionPool() {
+            return connectionPool;
+        }
+
+        public ClientConfig setConnectionPool(String connectionPool) {
+            this.connectionPool = connectionPool;
+            return this;
+        }
+
+        public boolean isFastBinding() {
+            return fastBinding;
+        }
+
+        public ClientConfig setFastBinding(boolean fastBinding) {
+            this.fastBinding = fastBinding;
+            return this;
+        }
+
         public HttpClientConfig http() {
             return http;
         }
@@ -90,11 +269,501 @@ public class SolrConfig {
             return cloud;
         }
 
+        public ConcurrentUpdateClientConfig concurrentUpdate() {
+            return concurrentUpdate;
+        }
+
+        public EmbeddedClientConfig embedded() {
+            return embedded;
+        }
+
+        public TransactionConfig transaction() {
+            return transaction;
+        }
+
+        public BulkConfig bulk() {
+            return bulk;
+        }
+
+        public QueryCacheConfig queryCache() {
+            return queryCache;
+        }
+
+        public StreamConfig stream() {
+            return stream;
+        }
+
+        public AsyncConfig async() {
+            return async;
+        }
+
+        public CircuitBreakerConfig circuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public BulkheadConfig bulkhead() {
+            return bulkhead;
+        }
+
+        public static class TransactionConfig {
+            @NotNull
+            private CommitMode commitMode = CommitMode.HARD;
+            @Min(1)
+            private int commitWithin = 1000;
+            private boolean bufferUpdates = false;
+            @Min(1)
+            private int batchSize = 1000;
+            private boolean groupCommit = false;
+            @Min(0)
+            private int groupCommitWindow = 5;
+            @Min(1)
+            private int groupCommitMaxTransactions = 100;
+            @Min(1)
+            private int groupCommitTimeout = 60000;
+            private boolean commitWithoutUpdates = false;
+            private boolean trace = false;
+            @Min(0)
+            private int slowThreshold = 1000;
+
+            public CommitMode getCommitMode() {
+                return commitMode;
+            }
+
+            public TransactionConfig setCommitMode(CommitMode commitMode) {
+                this.commitMode = commitMode;
+                return this;
+            }
+
+            public int getCommitWithin() {
+                return commitWithin;
+            }
+
+            public TransactionConfig setCommitWithin(int commitWithin) {
+                this.commitWithin = commitWithin;
+                return this;
+            }
+
+            public boolean isBufferUpdates() {
+                return bufferUpdates;
+            }
+
+            public TransactionConfig setBufferUpdates(boolean bufferUpdates) {
+                this.bufferUpdates = bufferUpdates;
+                return this;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public TransactionConfig setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+                return this;
+            }
+
+            public boolean isGroupCommit() {
+                return groupCommit;
+            }
+
+            public TransactionConfig setGroupCommit(boolean groupCommit) {
+                this.groupCommit = groupCommit;
+                return this;
+            }
+
+            public int getGroupCommitWindow() {
+                return groupCommitWindow;
+            }
+
+            public TransactionConfig setGroupCommitWindow(int groupCommitWindow) {
+                this.groupCommitWindow = groupCommitWindow;
+                return this;
+            }
+
+            public int getGroupCommitMaxTransactions() {
+                return groupCommitMaxTransactions;
+            }
+
+            public TransactionConfig setGroupCommitMaxTransactions(int groupCommitMaxTransactions) {
+                this.groupCommitMaxTransactions = groupCommitMaxTransactions;
+                return this;
+            }
+
+            public int getGroupCommitTimeout() {
+                return groupCommitTimeout;
+            }
+
+            public TransactionConfig setGroupCommitTimeout(int groupCommitTimeout) {
+                this.groupCommitTimeout = groupCommitTimeout;
+                return this;
+            }
+
+            public boolean isCommitWithoutUpdates() {
+                return commitWithoutUpdates;
+            }
+
+            public TransactionConfig setCommitWithoutUpdates(boolean commitWithoutUpdates) {
+                this.commitWithoutUpdates = commitWithoutUpdates;
+                return this;
+            }
+
+            public boolean isTrace() {
+                return trace;
+            }
+
+            public TransactionConfig setTrace(boolean trace) {
+                this.trace = trace;
+                return this;
+            }
+
+            public int getSlowThreshold() {
+                return slowThreshold;
+            }
+
+            public TransactionConfig setSlowThreshold(int slowThreshold) {
+                this.slowThreshold = slowThreshold;
+                return this;
+            }
+        }
+
+        public static class BulkConfig {
+            private String collection;
+            @Min(1)
+            private int queueSize = 10000;
+            @Min(1)
+            private int threadCount = 1;
+            @Min(1)
+            private int batchSize = 1000;
+            @Min(1)
+            private int flushInterval = 1000;
+            @NotNull
+            private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+            public String getCollection() {
+                return collection;
+            }
+
+            public BulkConfig setCollection(String collection) {
+                this.collection = collection;
+                return this;
+            }
+
+            public int getQueueSize() {
+                return queueSize;
+            }
+
+            public BulkConfig setQueueSize(int queueSize) {
+                this.queueSize = queueSize;
+                return this;
+            }
+
+            public int getThreadCount() {
+                return threadCount;
+            }
+
+            public BulkConfig setThreadCount(int threadCount) {
+                this.threadCount = threadCount;
+                return this;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public BulkConfig setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+                return this;
+            }
+
+            public int getFlushInterval() {
+                return flushInterval;
+            }
+
+            public BulkConfig setFlushInterval(int flushInterval) {
+                this.flushInterval = flushInterval;
+                return this;
+            }
+
+            public OverflowPolicy getOverflowPolicy() {
+                return overflowPolicy;
+            }
+
+            public BulkConfig setOverflowPolicy(OverflowPolicy overflowPolicy) {
+                this.overflowPolicy = overflowPolicy;
+                return this;
+            }
+
+            public enum OverflowPolicy {
+                /**
+                 * The producer blocks until room is available in the queue.
+                 */
+                BLOCK,
+                /**
+                 * The document is dropped and its failure callback invoked.
+                 */
+                DROP,
+                /**
+                 * An exception is thrown to the producer.
+                 */
+                FAIL
+            }
+        }
+
+        /**
+         * Cache of query responses, invalidated when a commit is sent through the client and when a transaction with
+         * updates ends on it. It is only used with the {@link CommitMode#HARD} and {@link CommitMode#SOFT} commit
+         * modes: with the other modes updates become visible some time after the end of the transaction, so a query in
+         * between would cache stale results until they expire. It is disabled (with a warning) otherwise.
+         */
+        public static class QueryCacheConfig {
+            private boolean enabled = false;
+            @Min(1)
+            private int maxSize = 1000;
+            @Min(1)
+            private int ttl = 60000;
+            @Min(1)
+            private int maxEntryWeight = 1000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public QueryCacheConfig setEnabled(boolean enabled) {
+                this.enabled = enabled;
+                return this;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public QueryCacheConfig setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+                return this;
+            }
+
+            public int getTtl() {
+                return ttl;
+            }
+
+            public QueryCacheConfig setTtl(int ttl) {
+                this.ttl = ttl;
+                return this;
+            }
+
+            public int getMaxEntryWeight() {
+                return maxEntryWeight;
+            }
+
+            public QueryCacheConfig setMaxEntryWeight(int maxEntryWeight) {
+                this.maxEntryWeight = maxEntryWeight;
+                return this;
+            }
+        }
+
+        public static class StreamConfig {
+            @Min(1)
+            private int pageSize = 500;
+            private boolean prefetch = false;
+            @NotNull
+            private String uniqueKey = "id";
+
+            public int getPageSize() {
+                return pageSize;
+            }
+
+            public StreamConfig setPageSize(int pageSize) {
+                this.pageSize = pageSize;
+                return this;
+            }
+
+            public boolean isPrefetch() {
+                return prefetch;
+            }
+
+            public StreamConfig setPrefetch(boolean prefetch) {
+                this.prefetch = prefetch;
+                return this;
+            }
+
+            public String getUniqueKey() {
+                return uniqueKey;
+            }
+
+            public StreamConfig setUniqueKey(String uniqueKey) {
+                this.uniqueKey = uniqueKey;
+                return this;
+            }
+        }
+
+        public static class AsyncConfig {
+            @Min(1)
+            private int threadCount = 4;
+            @Min(1)
+            private int queueSize = 1000;
+            private boolean virtualThreads = false;
+            @Min(0)
+            private long timeout = 0;
+
+            public int getThreadCount() {
+                return threadCount;
+            }
+
+            public AsyncConfig setThreadCount(int threadCount) {
+                this.threadCount = threadCount;
+                return this;
+            }
+
+            public int getQueueSize() {
+                return queueSize;
+            }
+
+            public AsyncConfig setQueueSize(int queueSize) {
+                this.queueSize = queueSize;
+                return this;
+            }
+
+            public boolean isVirtualThreads() {
+                return virtualThreads;
+            }
+
+            public AsyncConfig setVirtualThreads(boolean virtualThreads) {
+                this.virtualThreads = virtualThreads;
+                return this;
+            }
+
+            public long getTimeout() {
+                return timeout;
+            }
+
+            public AsyncConfig setTimeout(long timeout) {
+                this.timeout = timeout;
+                return this;
+            }
+        }
+
+        public static class CircuitBreakerConfig {
+            private boolean enabled = false;
+            @Min(1)
+            @Max(100)
+            private int failureRateThreshold = 50;
+            @Min(0)
+            private long slowCallDuration = 0;
+            @Min(1)
+            private int windowSize = 20;
+            @Min(1)
+            private int minimumCalls = 10;
+            @Min(0)
+            private long openDuration = 5000;
+            @Min(1)
+            private int halfOpenCalls = 1;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public CircuitBreakerConfig setEnabled(boolean enabled) {
+                this.enabled = enabled;
+                return this;
+            }
+
+            public int getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public CircuitBreakerConfig setFailureRateThreshold(int failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+                return this;
+            }
+
+            public long getSlowCallDuration() {
+                return slowCallDuration;
+            }
+
+            public CircuitBreakerConfig setSlowCallDuration(long slowCallDuration) {
+                this.slowCallDuration = slowCallDuration;
+                return this;
+            }
+
+            public int getWindowSize() {
+                return windowSize;
+            }
+
+            public CircuitBreakerConfig setWindowSize(int windowSize) {
+                this.windowSize = windowSize;
+                return this;
+            }
+
+            public int getMinimumCalls() {
+                return minimumCalls;
+            }
+
+            public CircuitBreakerConfig setMinimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+                return this;
+            }
+
+            public long getOpenDuration() {
+                return openDuration;
+            }
+
+            public CircuitBreakerConfig setOpenDuration(long openDuration) {
+                this.openDuration = openDuration;
+                return this;
+            }
+
+            public int getHalfOpenCalls() {
+                return halfOpenCalls;
+            }
+
+            public CircuitBreakerConfig setHalfOpenCalls(int halfOpenCalls) {
+                this.halfOpenCalls = halfOpenCalls;
+                return this;
+            }
+        }
+
+        public static class BulkheadConfig {
+            private Integer maxConcurrentCalls;
+            @Min(0)
+            private long maxWait = 0;
+
+            public Integer getMaxConcurrentCalls() {
+                return maxConcurrentCalls;
+            }
+
+            public BulkheadConfig setMaxConcurrentCalls(Integer maxConcurrentCalls) {
+                this.maxConcurrentCalls = maxConcurrentCalls;
+                return this;
+            }
+
+            public long getMaxWait() {
+                return maxWait;
+            }
+
+            public BulkheadConfig setMaxWait(long maxWait) {
+                this.maxWait = maxWait;
+                return this;
+            }
+        }
+
         public static class LBHttpClientConfig {
             private Integer connectionTimeout;
             private Integer socketTimeout;
             private Set<String> queryParams;
             private Integer aliveCheckInterval;
+            private boolean latencyAware = false;
+            @DecimalMin("0")
+            @DecimalMax("1")
+            private double latencySmoothing = 0.2;
+            @Min(1)
+            private int latencyHalfLife = 10000;
+            private boolean hedging = false;
+            @Min(1)
+            @Max(99)
+            private int hedgePercentile = 95;
+            @Min(0)
+            private int minHedgeDelay = 5;
+            @Min(1)
+            private int hedgeThreadCount = 16;
 
             public Integer getConnectionTimeout() {
                 return connectionTimeout;
@@ -131,6 +800,69 @@ public class SolrConfig {
                 this.aliveCheckInterval = aliveCheckInterval;
                 return this;
             }
+
+            public boolean isLatencyAware() {
+                return latencyAware;
+            }
+
+            public LBHttpClientConfig setLatencyAware(boolean latencyAware) {
+                this.latencyAware = latencyAware;
+                return this;
+            }
+
+            public double getLatencySmoothing() {
+                return latencySmoothing;
+            }
+
+            public LBHttpClientConfig setLatencySmoothing(double latencySmoothing) {
+                this.latencySmoothing = latencySmoothing;
+                return this;
+            }
+
+            public int getLatencyHalfLife() {
+                return latencyHalfLife;
+            }
+
+            public LBHttpClientConfig setLatencyHalfLife(int latencyHalfLife) {
+                this.latencyHalfLife = latencyHalfLife;
+                return this;
+            }
+
+            public boolean isHedging() {
+                return hedging;
+            }
+
+            public LBHttpClientConfig setHedging(boolean hedging) {
+                this.hedging = hedging;
+                return this;
+            }
+
+            public int getHedgePercentile() {
+                return hedgePercentile;
+            }
+
+            public LBHttpClientConfig setHedgePercentile(int hedgePercentile) {
+                this.hedgePercentile = hedgePercentile;
+                return this;
+            }
+
+            public int getMinHedgeDelay() {
+                return minHedgeDelay;
+            }
+
+            public LBHttpClientConfig setMinHedgeDelay(int minHedgeDelay) {
+                this.minHedgeDelay = minHedgeDelay;
+                return this;
+            }
+
+            public int getHedgeThreadCount() {
+                return hedgeThreadCount;
+            }
+
+            public LBHttpClientConfig setHedgeThreadCount(int hedgeThreadCount) {
+                this.hedgeThreadCount = hedgeThreadCount;
+                return this;
+            }
         }
 
         public static class HttpClientConfig {
@@ -143,6 +875,12 @@ public class SolrConfig {
             private Integer maxTotalConnections;
             private Boolean useMultiPartHost;
             private Integer aliveCheckInterval;
+            private boolean requestCompression = false;
+            @Min(0)
+            private int requestCompressionThreshold = 16384;
+            @Min(1)
+            @Max(9)
+            private int requestCompressionLevel = 6;
 
             public Integer getConnectionTimeout() {
                 return connectionTimeout;
@@ -224,6 +962,121 @@ public class SolrConfig {
                 this.aliveCheckInterval = aliveCheckInterval;
                 return this;
             }
+
+            public boolean isRequestCompression() {
+                return requestCompression;
+            }
+
+            public HttpClientConfig setRequestCompression(boolean requestCompression) {
+                this.requestCompression = requestCompression;
+                return this;
+            }
+
+            public int getRequestCompressionThreshold() {
+                return requestCompressionThreshold;
+            }
+
+            public HttpClientConfig setRequestCompressionThreshold(int requestCompressionThreshold) {
+                this.requestCompressionThreshold = requestCompressionThreshold;
+                return this;
+            }
+
+            public int getRequestCompressionLevel() {
+                return requestCompressionLevel;
+            }
+
+            public HttpClientConfig setRequestCompressionLevel(int requestCompressionLevel) {
+                this.requestCompressionLevel = requestCompressionLevel;
+                return this;
+            }
+        }
+
+        public static class ConcurrentUpdateClientConfig {
+            @Min(1)
+            private int queueSize = 1000;
+            @Min(1)
+            private int threadCount = 1;
+            private Integer pollQueueTime;
+            private boolean streamDeletes = false;
+            private Integer connectionTimeout;
+            private Integer socketTimeout;
+
+            public int getQueueSize() {
+                return queueSize;
+            }
+
+            public ConcurrentUpdateClientConfig setQueueSize(int queueSize) {
+                this.queueSize = queueSize;
+                return this;
+            }
+
+            public int getThreadCount() {
+                return threadCount;
+            }
+
+            public ConcurrentUpdateClientConfig setThreadCount(int threadCount) {
+                this.threadCount = threadCount;
+                return this;
+            }
+
+            public Integer getPollQueueTime() {
+                return pollQueueTime;
+            }
+
+            public ConcurrentUpdateClientConfig setPollQueueTime(Integer pollQueueTime) {
+                this.pollQueueTime = pollQueueTime;
+                return this;
+            }
+
+            public boolean isStreamDeletes() {
+                return streamDeletes;
+            }
+
+            public ConcurrentUpdateClientConfig setStreamDeletes(boolean streamDeletes) {
+                this.streamDeletes = streamDeletes;
+                return this;
+            }
+
+            public Integer getConnectionTimeout() {
+                return connectionTimeout;
+            }
+
+            public ConcurrentUpdateClientConfig setConnectionTimeout(Integer connectionTimeout) {
+                this.connectionTimeout = connectionTimeout;
+                return this;
+            }
+
+            public Integer getSocketTimeout() {
+                return socketTimeout;
+            }
+
+            public ConcurrentUpdateClientConfig setSocketTimeout(Integer socketTimeout) {
+                this.socketTimeout = socketTimeout;
+                return this;
+            }
+        }
+
+        public static class EmbeddedClientConfig {
+            private String solrHome;
+            private String coreName;
+
+            public String getSolrHome() {
+                return solrHome;
+            }
+
+            public EmbeddedClientConfig setSolrHome(String solrHome) {
+                this.solrHome = solrHome;
+                return this;
+            }
+
+            public String getCoreName() {
+                return coreName;
+            }
+
+            public EmbeddedClientConfig setCoreName(String coreName) {
+                this.coreName = coreName;
+                return this;
+            }
         }
 
         public static class CloudClientConfig {
@@ -332,7 +1185,70 @@ public class SolrConfig {
         public enum SolrClientType {
             HTTP,
             LOAD_BALANCED_HTTP,
-            CLOUD
+            CLOUD,
+            CONCURRENT_UPDATE,
+            EMBEDDED
+        }
+
+        public enum RequestWriterType {
+            /**
+             * Requests are sent as XML.
+             */
+            XML,
+            /**
+             * Requests are sent in the javabin binary format.
+             */
+            BINARY
+        }
+
+        public enum ResponseParserType {
+            /**
+             * Responses are received as XML.
+             */
+            XML,
+            /**
+             * Responses are received in the javabin binary format.
+             */
+            BINARY,
+            /**
+             * Responses are not parsed. Only suitable for clients dedicated to updates as query responses cannot be
+             * read.
+             */
+            NO_OP
+        }
+
+        public enum CommitMode {
+            /**
+             * A hard commit is issued at the end of each transaction, opening a new searcher.
+             */
+            HARD,
+            /**
+             * A soft commit is issued at the end of each transaction, making changes visible without flushing them
+             * to stable storage.
+             */
+            SOFT,
+            /**
+             * No explicit commit is issued, update requests made inside the transaction are stamped with a
+             * commitWithin delay instead. The query cache is not used with this mode.
+             */
+            COMMIT_WITHIN,
+            /**
+             * No commit is issued at all, leaving it to the server autoCommit configuration. The query cache is not
+             * used with this mode.
+             */
+            NONE
+        }
+
+        public enum StartupMode {
+            /**
+             * Connections (and the cluster state of CLOUD clients) are established on first use.
+             */
+            LAZY,
+            /**
+             * Connections (and the cluster state of CLOUD clients) are established at startup by pinging the client
+             * (its default collection for CLOUD clients).
+             */
+            EAGER
         }
     }
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import java.util.function.Supplier;
+
+/**
+ * Receives the measurements of configured Solr clients and transactions. Implement this interface to bridge them to
+ * a metrics registry and specify the implementation class with the {@code solr.metrics} configuration option. The
+ * implementation is created by the injector as a singleton, so the registry can be injected into it, and is also
+ * available for injection. Measurements made during startup, before it is created, are dropped but gauges are registered
+ * on it once created. All methods can be called concurrently.
+ */
+public interface SolrMetrics {
+    /**
+     * Records a request made by a client.
+     *
+     * @param clientName    the name of the client.
+     * @param requestType   the type of the request.
+     * @param wallTimeNanos the time spent waiting for the response, in nanoseconds.
+     * @param qTime         the processing time reported by Solr in milliseconds, or -1 if not available.
+     * @param documents     the number of documents sent by the request.
+     * @param success       true if the request succeeded, false otherwise.
+     */
+    void recordRequest(String clientName, RequestType requestType, long wallTimeNanos, int qTime, int documents, boolean success);
+
+    /**
+     * Records the size of HTTP messages exchanged by a client, as bytes on the wire (compressed bodies are counted
+     * compressed). Only called for HTTP-based clients, once a request body has been written or once a response body
+     * has been read or closed.
+     *
+     * @param clientName    the name of the client.
+     * @param bytesSent     the size of the request body in bytes.
+     * @param bytesReceived the size of the response body in bytes.
+     */
+    void recordBytes(String clientName, long bytesSent, long bytesReceived);
+
+    /**
+     * Records the commit of a transaction.
+     *
+     * @param clientName    the name of the client.
+     * @param durationNanos the time spent committing, in nanoseconds (including the sending of buffered updates).
+     */
+    void recordCommit(String clientName, long durationNanos);
+
+    /**
+     * Records the rollback of a transaction.
+     *
+     * @param clientName the name of the client.
+     */
+    void recordRollback(String clientName);
+
+    /**
+     * Records a transaction that failed to commit or to rollback.
+     *
+     * @param clientName the name of the client.
+     */
+    void recordTransactionFailure(String clientName);
+
+    /**
+     * Registers a gauge whose value is polled by the registry, like the state of a connection pool.
+     *
+     * @param clientName the name of the client.
+     * @param gaugeName  the name of the gauge.
+     * @param gauge      the supplier of the gauge value.
+     */
+    void registerGauge(String clientName, String gaugeName, Supplier<Number> gauge);
+
+    /**
+     * The types of Solr requests.
+     */
+    enum RequestType {
+        QUERY,
+        UPDATE,
+        ADMIN
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import org.apache.solr.client.solrj.SolrQuery;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a query in parallel on several configured Solr clients and merges their results. Results are merged on the
+ * sort clauses of the query (fields or functions), or by descending score if it has none, and the start and rows
+ * parameters of the query apply to the merged results. Numbers of different types are compared as numbers, while
+ * other values of different types cannot be merged and fail the query. Clients failing or exceeding their timeout are
+ * reported in the result instead of failing the whole query. Queries are executed with the {@link AsyncSolrClient} of
+ * each client.
+ */
+public interface SolrScatterGather {
+    /**
+     * Queries the default collection of the specified clients, each with its default asynchronous timeout or 30
+     * seconds if it has none.
+     *
+     * @param query       the query.
+     * @param clientNames the names of the clients to query.
+     * @return the merged result.
+     */
+    SolrScatterGatherResult query(SolrQuery query, Collection<String> clientNames);
+
+    /**
+     * Queries the default collection of the specified clients with a specific timeout per client.
+     *
+     * @param query       the query.
+     * @param clientNames the names of the clients to query.
+     * @param timeout     the timeout of each client query, zero meaning no timeout.
+     * @param unit        the unit of the timeout.
+     * @return the merged result.
+     */
+    SolrScatterGatherResult query(SolrQuery query, Collection<String> clientNames, long timeout, TimeUnit unit);
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocumentList;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of a {@link SolrScatterGather} query.
+ */
+public class SolrScatterGatherResult {
+    private final SolrDocumentList results;
+    private final Map<String, QueryResponse> responses;
+    private final Map<String, Throwable> failures;
+
+    public SolrScatterGatherResult(SolrDocumentList results, Map<String, QueryResponse> responses, Map<String, Throwable> failures) {
+        this.results = results;
+        this.responses = Collections.unmodifiableMap(responses);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return the merged page of documents. Its number of documents found is the sum of the successful clients.
+     */
+    public SolrDocumentList getResults() {
+        return results;
+    }
+
+    /**
+     * @return the responses of the successful clients, by client name.
+     */
+    public Map<String, QueryResponse> getResponses() {
+        return responses;
+    }
+
+    /**
+     * @return the failures (including timeouts) of the other clients, by client name.
+     */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return true if at least one client failed, in which case the results are partial.
+     */
+    public boolean isPartial() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.SolrDocument;
+
+import java.util.stream.Stream;
+
+/**
+ * Streams the results of a query on a configured Solr client, page by page using cursor marks, so memory usage does
+ * not depend on the number of results. The query is sorted on the unique key if it isn't already and its start and
+ * rows parameters are replaced by the cursor and the configured page size. Streams must be closed when not fully
+ * consumed. Inject it with the {@link javax.inject.Named} qualifier of the corresponding client.
+ */
+public interface SolrStreamer {
+    /**
+     * Streams the documents matching a query on the default collection.
+     *
+     * @param query the query.
+     * @return the lazily evaluated stream of documents.
+     */
+    Stream<SolrDocument> stream(SolrQuery query);
+
+    /**
+     * Streams the documents matching a query on the specified collection.
+     *
+     * @param collection the collection to query.
+     * @param query      the query.
+     * @return the lazily evaluated stream of documents.
+     */
+    Stream<SolrDocument> stream(String collection, SolrQuery query);
+
+    /**
+     * Streams the documents matching a query on the default collection, bound to beans.
+     *
+     * @param query     the query.
+     * @param beanClass the class of beans, annotated with {@link org.apache.solr.client.solrj.beans.Field}.
+     * @param <T>       the type of beans.
+     * @return the lazily evaluated stream of beans.
+     */
+    <T> Stream<T> stream(SolrQuery query, Class<T> beanClass);
+
+    /**
+     * Streams the documents matching a query on the specified collection, bound to beans.
+     *
+     * @param collection the collection to query.
+     * @param query      the query.
+     * @param beanClass  the class of beans, annotated with {@link org.apache.solr.client.solrj.beans.Field}.
+     * @param <T>        the type of beans.
+     * @return the lazily evaluated stream of beans.
+     */
+    <T> Stream<T> stream(String collection, SolrQuery query, Class<T> beanClass);
+}
@@ -0,0 +1,24 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+/**
+ * Receives the trace of each completed transaction of the clients having the {@code transaction.trace} option enabled.
+ * Implement this interface to export transactions as spans (to OpenTelemetry for instance) and specify the
+ * implementation class with the {@code solr.transactionListener} configuration option. The implementation is created by
+ * the injector as a singleton, so its dependencies can be injected into it. It is called synchronously at the end of each transaction, possibly concurrently, so it
+ * should hand the trace over quickly. Exceptions it throws are logged and ignored.
+ */
+public interface SolrTransactionListener {
+    /**
+     * Called after the commit or rollback of a transaction.
+     *
+     * @param solrTransactionTrace the trace of the transaction.
+     */
+    void onTransactionEnd(SolrTransactionTrace solrTransactionTrace);
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trace of a completed Solr transaction, as received by {@link SolrTransactionListener}. It can be exported as a span
+ * starting at {@link #getStartTimeMillis()} and lasting {@link #getDurationNanos()}, with {@link #getAttributes()} as
+ * span attributes.
+ */
+public class SolrTransactionTrace {
+    private final String clientName;
+    private final Method method;
+    private final Outcome outcome;
+    private final long startTimeMillis;
+    private final long durationNanos;
+    private final long requestTimeNanos;
+    private final long commitTimeNanos;
+    private final Map<SolrMetrics.RequestType, Integer> requestCounts;
+    private final int documents;
+
+    public SolrTransactionTrace(String clientName, Method method, Outcome outcome, long startTimeMillis, long durationNanos, long requestTimeNanos, long commitTimeNanos, Map<SolrMetrics.RequestType, Integer> requestCounts, int documents) {
+        this.clientName = clientName;
+        this.method = method;
+        this.outcome = outcome;
+        this.startTimeMillis = startTimeMillis;
+        this.durationNanos = durationNanos;
+        this.requestTimeNanos = requestTimeNanos;
+        this.commitTimeNanos = commitTimeNanos;
+        this.requestCounts = Collections.unmodifiableMap(new EnumMap<>(requestCounts));
+        this.documents = documents;
+    }
+
+    /**
+     * @return the name of the client.
+     */
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * @return the transactional method that started the transaction or null if it is not known.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return how the transaction ended.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return the start time of the transaction, in milliseconds since the epoch.
+     */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * @return the duration of the transaction from its start to the end of its commit or rollback, in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the time spent in requests made through the transaction, in nanoseconds.
+     */
+    public long getRequestTimeNanos() {
+        return requestTimeNanos;
+    }
+
+    /**
+     * @return the time spent committing or rolling back (including the sending of buffered updates), in nanoseconds.
+     */
+    public long getCommitTimeNanos() {
+        return commitTimeNanos;
+    }
+
+    /**
+     * @return the number of requests made through the transaction, by type.
+     */
+    public Map<SolrMetrics.RequestType, Integer> getRequestCounts() {
+        return requestCounts;
+    }
+
+    /**
+     * @return the total number of requests made through the transaction.
+     */
+    public int getRequestCount() {
+        int requestCount = 0;
+        for (Integer count : requestCounts.values()) {
+            requestCount += count;
+        }
+        return requestCount;
+    }
+
+    /**
+     * @return the number of documents added or deleted by id through the transaction.
+     */
+    public int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * @return the trace as span attributes, following the OpenTelemetry semantic conventions where they apply.
+     */
+    public Map<String, Object> getAttributes() {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("db.system", "solr");
+        attributes.put("solr.client", clientName);
+        if (method != null) {
+            attributes.put("code.namespace", method.getDeclaringClass().getName());
+            attributes.put("code.function", method.getName());
+        }
+        attributes.put("solr.transaction.outcome", outcome.name());
+        for (Map.Entry<SolrMetrics.RequestType, Integer> requestCount : requestCounts.entrySet()) {
+            attributes.put("solr.requests." + requestCount.getKey().name().toLowerCase(), requestCount.getValue());
+        }
+        attributes.put("solr.documents", documents);
+        attributes.put("solr.request_time_ms", TimeUnit.NANOSECONDS.toMillis(requestTimeNanos));
+        attributes.put("solr.commit_time_ms", TimeUnit.NANOSECONDS.toMillis(commitTimeNanos));
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Solr transaction on client %s%s %s in %d ms (%d requests %s, %d documents, %d ms in requests, %d ms in commit)",
+                clientName,
+                method == null ? "" : " from " + method.getDeclaringClass().getName() + "." + method.getName() + "()",
+                outcome.name().toLowerCase().replace('_', ' '),
+                TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                getRequestCount(),
+                requestCounts,
+                documents,
+                TimeUnit.NANOSECONDS.toMillis(requestTimeNanos),
+                TimeUnit.NANOSECONDS.toMillis(commitTimeNanos));
+    }
+
+    /**
+     * The outcomes of a transaction.
+     */
+    public enum Outcome {
+        COMMITTED,
+        ROLLED_BACK,
+        FAILED
+    }
+}
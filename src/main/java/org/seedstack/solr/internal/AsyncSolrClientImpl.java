@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.SolrParams;
+import org.seedstack.seed.SeedException;
+import org.seedstack.solr.AsyncSolrClient;
+import org.seedstack.solr.SolrConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AsyncSolrClientImpl implements AsyncSolrClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncSolrClientImpl.class);
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    private final String clientName;
+    private final SolrClient solrClient;
+    private final SolrConfig.ClientConfig.AsyncConfig asyncConfig;
+    private final ExecutorService executorService;
+    private final ScheduledExecutorService timeoutScheduler;
+    private volatile boolean closed;
+
+    AsyncSolrClientImpl(String clientName, SolrClient solrClient, SolrConfig.ClientConfig.AsyncConfig asyncConfig) {
+        this.clientName = clientName;
+        this.solrClient = solrClient;
+        this.asyncConfig = asyncConfig;
+        // threads are only started by the first requests
+        this.executorService = createExecutorService();
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, String.format("solr-async-timeout-%s", clientName));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(SolrParams params) {
+        return query(null, params);
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(String collection, SolrParams params) {
+        return query(collection, params, asyncConfig.getTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> query(String collection, SolrParams params, long timeout, TimeUnit unit) {
+        return submit(() -> solrClient.query(collection, params), unit.toMillis(timeout));
+    }
+
+    @Override
+    public CompletableFuture<UpdateResponse> add(Collection<SolrInputDocument> documents) {
+        return add(null, documents);
+    }
+
+    @Override
+    public CompletableFuture<UpdateResponse> add(String collection, Collection<SolrInputDocument> documents) {
+        return add(collection, documents, asyncConfig.getTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<UpdateResponse> add(String collection, Collection<SolrInputDocument> documents, long timeout, TimeUnit unit) {
+        return submit(() -> solrClient.add(collection, documents), unit.toMillis(timeout));
+    }
+
+    @Override
+    public CompletableFuture<UpdateResponse> deleteByQuery(String query) {
+        return deleteByQuery(null, query);
+    }
+
+    @Override
+    public CompletableFuture<UpdateResponse> deleteByQuery(String collection, String query) {
+        return deleteByQuery(collection, query, asyncConfig.getTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public CompletableFuture<UpdateResponse> deleteByQuery(String collection, String query, long timeout, TimeUnit unit) {
+        return submit(() -> solrClient.deleteByQuery(collection, query), unit.toMillis(timeout));
+    }
+
+    void close() {
+        closed = true;
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Asynchronous requests of Solr client {} still running after {} seconds, interrupting them", clientName, CLOSE_TIMEOUT_SECONDS);
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+        timeoutScheduler.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call, long timeoutMillis) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(SeedException.createNew(SolrErrorCode.ASYNC_REQUEST_REJECTED).put("clientName", clientName));
+            return result;
+        }
+
+        Future<?> task;
+        try {
+            task = executorService.submit(() -> {
+                try {
+                    result.complete(call.call());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(SeedException.wrap(e, SolrErrorCode.ASYNC_REQUEST_REJECTED).put("clientName", clientName));
+            return result;
+        }
+
+        if (timeoutMillis > 0) {
+            try {
+                ScheduledFuture<?> timeout = timeoutScheduler.schedule(
+                        () -> result.completeExceptionally(new TimeoutException(String.format("Solr request on client %s timed out after %d ms", clientName, timeoutMillis))),
+                        timeoutMillis,
+                        TimeUnit.MILLISECONDS
+                );
+                result.whenComplete((response, failure) -> timeout.cancel(false));
+            } catch (RejectedExecutionException e) {
+                // the client has been closed in the meantime
+                result.completeExceptionally(SeedException.wrap(e, SolrErrorCode.ASYNC_REQUEST_REJECTED).put("clientName", clientName));
+            }
+        }
+
+        // cancellation and timeout interrupt the request (no effect if it already completed)
+        result.whenComplete((response, failure) -> {
+            if (failure != null) {
+                task.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    private ExecutorService createExecutorService() {
+        if (asyncConfig.isVirtualThreads()) {
+            ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                return virtualThreadExecutor;
+            }
+            LOGGER.info("Virtual threads are not available for Solr client {}, using a bounded thread pool", clientName);
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                asyncConfig.getThreadCount(),
+                asyncConfig.getThreadCount(),
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(asyncConfig.getQueueSize()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, String.format("solr-async-%s-%d", clientName, threadIndex.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
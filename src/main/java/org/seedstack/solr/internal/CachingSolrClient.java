@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.impl.StreamingBinaryResponseParser;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.seedstack.solr.SolrConfig;
+import org.seedstack.solr.SolrMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the responses of query requests, keyed by collection, handler path and normalized parameters. The cache is
+ * invalidated when a commit is sent through this client and when a transaction with updates ends on it. Each caller
+ * gets its own copy of a cached response, so it can be modified freely. Cursor pages and streamed responses are never
+ * cached. Only used with commit modes making the updates visible when the transaction ends.
+ */
+class CachingSolrClient extends ForwardingSolrClient {
+    private final SolrConfig.ClientConfig.QueryCacheConfig queryCacheConfig;
+    private final Cache<String, NamedList<Object>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    CachingSolrClient(String clientName, SolrClient delegate, SolrConfig.ClientConfig.QueryCacheConfig queryCacheConfig, SolrMetrics solrMetrics) {
+        super(delegate);
+        this.queryCacheConfig = queryCacheConfig;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(queryCacheConfig.getMaxSize())
+                .expireAfterWrite(queryCacheConfig.getTtl(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        solrMetrics.registerGauge(clientName, "queryCache.hits", () -> cache.stats().hitCount());
+        solrMetrics.registerGauge(clientName, "queryCache.misses", () -> cache.stats().missCount());
+        solrMetrics.registerGauge(clientName, "queryCache.evictions", () -> cache.stats().evictionCount());
+        solrMetrics.registerGauge(clientName, "queryCache.size", cache::size);
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        if (request instanceof QueryRequest && isCacheable(request)) {
+            String key = cacheKey(request, collection);
+            NamedList<Object> cachedResponse = cache.getIfPresent(key);
+            if (cachedResponse != null) {
+                return copy(cachedResponse);
+            }
+
+            long requestGeneration = generation.get();
+            NamedList<Object> response = delegate.request(request, collection);
+            if (weight(response) <= queryCacheConfig.getMaxEntryWeight()) {
+                cache.put(key, copy(response));
+                if (generation.get() != requestGeneration) {
+                    // the cache was invalidated while the query was in flight so the response may be stale
+                    cache.invalidate(key);
+                }
+            }
+            return response;
+        }
+
+        NamedList<Object> response = delegate.request(request, collection);
+        if (request instanceof AbstractUpdateRequest && ((AbstractUpdateRequest) request).getAction() == AbstractUpdateRequest.ACTION.COMMIT) {
+            invalidate();
+        }
+        return response;
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private boolean isCacheable(SolrRequest request) {
+        if (request.getResponseParser() instanceof StreamingBinaryResponseParser) {
+            return false;
+        }
+        SolrParams params = request.getParams();
+        return params == null || params.get(CursorMarkParams.CURSOR_MARK_PARAM) == null;
+    }
+
+    private String cacheKey(SolrRequest request, String collection) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(collection).append('|').append(request.getPath()).append('|').append(request.getMethod());
+        SolrParams params = request.getParams();
+        if (params != null) {
+            TreeSet<String> names = new TreeSet<>();
+            Iterator<String> namesIterator = params.getParameterNamesIterator();
+            while (namesIterator.hasNext()) {
+                names.add(namesIterator.next());
+            }
+            for (String name : names) {
+                String[] values = params.getParams(name);
+                if (values != null) {
+                    for (String value : values) {
+                        sb.append('|').append(name).append('=').append(value.length()).append(':').append(value);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T value) {
+        if (value instanceof NamedList) {
+            NamedList<Object> namedList = (NamedList<Object>) value;
+            NamedList<Object> copy = namedList instanceof SimpleOrderedMap ? new SimpleOrderedMap<>() : new NamedList<>();
+            for (int i = 0; i < namedList.size(); i++) {
+                copy.add(namedList.getName(i), copy(namedList.getVal(i)));
+            }
+            return (T) copy;
+        } else if (value instanceof SolrDocumentList) {
+            SolrDocumentList solrDocumentList = (SolrDocumentList) value;
+            SolrDocumentList copy = new SolrDocumentList();
+            copy.setNumFound(solrDocumentList.getNumFound());
+            copy.setStart(solrDocumentList.getStart());
+            copy.setMaxScore(solrDocumentList.getMaxScore());
+            for (SolrDocument solrDocument : solrDocumentList) {
+                copy.add(copy(solrDocument));
+            }
+            return (T) copy;
+        } else if (value instanceof SolrDocument) {
+            SolrDocument solrDocument = (SolrDocument) value;
+            SolrDocument copy = new SolrDocument();
+            for (Map.Entry<String, Object> field : solrDocument) {
+                copy.setField(field.getKey(), copy(field.getValue()));
+            }
+            if (solrDocument.hasChildDocuments()) {
+                for (SolrDocument childDocument : solrDocument.getChildDocuments()) {
+                    copy.addChildDocument(copy(childDocument));
+                }
+            }
+            return (T) copy;
+        } else if (value instanceof Collection) {
+            List<Object> copy = new ArrayList<>(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                copy.add(copy(element));
+            }
+            return (T) copy;
+        } else if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return (T) copy;
+        } else if (value instanceof Date) {
+            return (T) new Date(((Date) value).getTime());
+        } else if (value instanceof byte[]) {
+            return (T) ((byte[]) value).clone();
+        }
+        // strings, numbers and booleans are immutable
+        return value;
+    }
+
+    private int weight(NamedList<Object> response) {
+        Object documents = response.get("response");
+        if (documents instanceof SolrDocumentList) {
+            return ((SolrDocumentList) documents).size();
+        }
+        return 0;
+    }
+}
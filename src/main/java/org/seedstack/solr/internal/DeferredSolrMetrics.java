@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.seedstack.solr.SolrMetrics;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Used when a metrics implementation is configured. Clients are created before the injector but the implementation is
+ * created by Guice (so a registry can be injected into it), so it is plugged in here once injected. Measurements made
+ * before are dropped, but gauges registered before are registered on the implementation when it is plugged in.
+ */
+class DeferredSolrMetrics implements SolrMetrics {
+    private final List<Gauge> pendingGauges = new ArrayList<>();
+    private volatile SolrMetrics delegate;
+
+    @Inject
+    void setDelegate(SolrMetrics solrMetrics) {
+        synchronized (pendingGauges) {
+            for (Gauge gauge : pendingGauges) {
+                solrMetrics.registerGauge(gauge.clientName, gauge.gaugeName, gauge.supplier);
+            }
+            pendingGauges.clear();
+            delegate = solrMetrics;
+        }
+    }
+
+    @Override
+    public void recordRequest(String clientName, RequestType requestType, long wallTimeNanos, int qTime, int documents, boolean success) {
+        SolrMetrics solrMetrics = delegate;
+        if (solrMetrics != null) {
+            solrMetrics.recordRequest(clientName, requestType, wallTimeNanos, qTime, documents, success);
+        }
+    }
+
+    @Override
+    public void recordBytes(String clientName, long bytesSent, long bytesReceived) {
+        SolrMetrics solrMetrics = delegate;
+        if (solrMetrics != null) {
+            solrMetrics.recordBytes(clientName, bytesSent, bytesReceived);
+        }
+    }
+
+    @Override
+    public void recordCommit(String clientName, long durationNanos) {
+        SolrMetrics solrMetrics = delegate;
+        if (solrMetrics != null) {
+            solrMetrics.recordCommit(clientName, durationNanos);
+        }
+    }
+
+    @Override
+    public void recordRollback(String clientName) {
+        SolrMetrics solrMetrics = delegate;
+        if (solrMetrics != null) {
+            solrMetrics.recordRollback(clientName);
+        }
+    }
+
+    @Override
+    public void recordTransactionFailure(String clientName) {
+        SolrMetrics solrMetrics = delegate;
+        if (solrMetrics != null) {
+            solrMetrics.recordTransactionFailure(clientName);
+        }
+    }
+
+    @Override
+    public void registerGauge(String clientName, String gaugeName, Supplier<Number> gauge) {
+        synchronized (pendingGauges) {
+            if (delegate == null) {
+                pendingGauges.add(new Gauge(clientName, gaugeName, gauge));
+                return;
+            }
+        }
+        delegate.registerGauge(clientName, gaugeName, gauge);
+    }
+
+    private static class Gauge {
+        private final String clientName;
+        private final String gaugeName;
+        private final Supplier<Number> supplier;
+
+        private Gauge(String clientName, String gaugeName, Supplier<Number> supplier) {
+            this.clientName = clientName;
+            this.gaugeName = gaugeName;
+            this.supplier = supplier;
+        }
+    }
+}
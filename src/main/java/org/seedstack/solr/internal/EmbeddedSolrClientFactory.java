@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import com.google.common.base.Strings;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.core.CoreContainer;
+import org.seedstack.seed.SeedException;
+import org.seedstack.solr.SolrConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds in-process Solr clients. Clients sharing the same Solr home also share the same core container, so
+ * cross-core features like joins work as with a standalone server. This class is kept apart from the plugin as it is
+ * the only one depending on solr-core, which is optional.
+ */
+class EmbeddedSolrClientFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddedSolrClientFactory.class);
+    private final Map<String, CoreContainer> coreContainers = new HashMap<>();
+    private final Set<SolrClient> embeddedSolrClients = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    SolrClient create(SolrConfig.ClientConfig.EmbeddedClientConfig embeddedClientConfig) {
+        if (Strings.isNullOrEmpty(embeddedClientConfig.getSolrHome()) || Strings.isNullOrEmpty(embeddedClientConfig.getCoreName())) {
+            throw SeedException.createNew(SolrErrorCode.INCOMPLETE_EMBEDDED_CONFIGURATION);
+        }
+
+        String solrHome = resolveSolrHome(embeddedClientConfig.getSolrHome());
+        CoreContainer coreContainer = coreContainers.get(solrHome);
+        if (coreContainer == null) {
+            LOGGER.info("Loading embedded Solr core container from {}", solrHome);
+            coreContainer = new CoreContainer(solrHome);
+            coreContainer.load();
+            coreContainers.put(solrHome, coreContainer);
+        }
+
+        SolrClient solrClient = new EmbeddedSolrServer(coreContainer, embeddedClientConfig.getCoreName());
+        embeddedSolrClients.add(solrClient);
+        return solrClient;
+    }
+
+    boolean isEmbedded(SolrClient solrClient) {
+        return embeddedSolrClients.contains(solrClient);
+    }
+
+    void close() {
+        for (Map.Entry<String, CoreContainer> coreContainerEntry : coreContainers.entrySet()) {
+            LOGGER.info("Shutting down embedded Solr core container {}", coreContainerEntry.getKey());
+            try {
+                coreContainerEntry.getValue().shutdown();
+            } catch (Exception e) {
+                LOGGER.error(String.format("Unable to properly shutdown embedded Solr core container %s", coreContainerEntry.getKey()), e);
+            }
+        }
+        coreContainers.clear();
+        embeddedSolrClients.clear();
+    }
+
+    private String resolveSolrHome(String solrHome) {
+        File solrHomeDirectory = new File(solrHome);
+        if (!solrHomeDirectory.isDirectory()) {
+            URL solrHomeUrl = Thread.currentThread().getContextClassLoader().getResource(solrHome);
+            if (solrHomeUrl != null && "file".equals(solrHomeUrl.getProtocol())) {
+                try {
+                    solrHomeDirectory = new File(solrHomeUrl.toURI());
+                } catch (URISyntaxException e) {
+                    throw SeedException.wrap(e, SolrErrorCode.INCOMPLETE_EMBEDDED_CONFIGURATION);
+                }
+            }
+        }
+        return solrHomeDirectory.getAbsolutePath();
+    }
+}
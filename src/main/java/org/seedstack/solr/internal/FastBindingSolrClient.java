@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+
+/**
+ * Binds beans with {@link FastDocumentObjectBinder} instead of the reflective binder of the decorated client.
+ */
+class FastBindingSolrClient extends ForwardingSolrClient {
+    FastBindingSolrClient(SolrClient delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public DocumentObjectBinder getBinder() {
+        return FastDocumentObjectBinder.INSTANCE;
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.beans.BindingException;
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.client.solrj.beans.Field;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link DocumentObjectBinder} using method handles created once per bean class instead of reflection. Only the
+ * common case is handled: public beans with a public no-arg constructor whose {@link Field} annotations are on fields
+ * with literal names, of scalar or list types. Other classes (annotated setters, dynamic field patterns, maps, arrays
+ * or child documents) are bound by the default implementation. Values are converted like SolrJ 5.2 does: a single
+ * value bound to a list field is wrapped in a list, a {@code byte[]} bound to a {@link ByteBuffer} field is wrapped, a
+ * boxed primitive is widened to the type of a primitive field, and a value of another type (like several values bound
+ * to a scalar field) fails with a {@link BindingException}.
+ * <p>
+ * The handles are held by the binder of each class, so the JIT does not treat them as constants: the gain over
+ * reflection is modest and {@code fastBinding} is opt-in. Measure it with {@code BinderBenchmark} on the target JVM.
+ */
+class FastDocumentObjectBinder extends DocumentObjectBinder {
+    static final FastDocumentObjectBinder INSTANCE = new FastDocumentObjectBinder();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final Method CHILD_ATTRIBUTE = childAttribute();
+    private static final List<Class<?>> WIDENING_ORDER = Arrays.<Class<?>>asList(Byte.class, Short.class, Integer.class, Long.class, Float.class);
+    private final ClassValue<BeanBinder> beanBinders = new ClassValue<BeanBinder>() {
+        @Override
+        protected BeanBinder computeValue(Class<?> type) {
+            return BeanBinder.create(type);
+        }
+    };
+
+    @Override
+    public <T> List<T> getBeans(Class<T> clazz, SolrDocumentList solrDocList) {
+        BeanBinder beanBinder = beanBinders.get(clazz);
+        if (beanBinder == null) {
+            return super.getBeans(clazz, solrDocList);
+        }
+        List<T> beans = new ArrayList<>(solrDocList.size());
+        for (SolrDocument solrDocument : solrDocList) {
+            beans.add(clazz.cast(beanBinder.toBean(solrDocument)));
+        }
+        return beans;
+    }
+
+    @Override
+    public <T> T getBean(Class<T> clazz, SolrDocument solrDoc) {
+        BeanBinder beanBinder = beanBinders.get(clazz);
+        if (beanBinder == null) {
+            return super.getBean(clazz, solrDoc);
+        }
+        return clazz.cast(beanBinder.toBean(solrDoc));
+    }
+
+    @Override
+    public SolrInputDocument toSolrInputDocument(Object obj) {
+        BeanBinder beanBinder = beanBinders.get(obj.getClass());
+        if (beanBinder == null) {
+            return super.toSolrInputDocument(obj);
+        }
+        return beanBinder.toSolrInputDocument(obj);
+    }
+
+    private static Method childAttribute() {
+        try {
+            return Field.class.getMethod("child");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static class BeanBinder {
+        private final MethodHandle constructor;
+        private final BoundField[] fields;
+
+        private BeanBinder(MethodHandle constructor, BoundField[] fields) {
+            this.constructor = constructor;
+            this.fields = fields;
+        }
+
+        /**
+         * @return the binder of the class or null if it cannot be handled without the default implementation.
+         */
+        private static BeanBinder create(Class<?> type) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                List<BoundField> boundFields = new ArrayList<>();
+                for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                    for (Method method : current.getDeclaredMethods()) {
+                        if (method.isAnnotationPresent(Field.class)) {
+                            return null;
+                        }
+                    }
+                    for (java.lang.reflect.Field field : current.getDeclaredFields()) {
+                        Field annotation = field.getAnnotation(Field.class);
+                        if (annotation == null) {
+                            continue;
+                        }
+                        if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()) || isChild(annotation)) {
+                            return null;
+                        }
+                        String name = Field.DEFAULT.equals(annotation.value()) ? field.getName() : annotation.value();
+                        Class<?> fieldType = field.getType();
+                        if (name.contains("*") || fieldType.isArray() || Map.class.isAssignableFrom(fieldType)) {
+                            return null;
+                        }
+                        makeAccessible(field);
+                        boundFields.add(new BoundField(
+                                name,
+                                fieldType,
+                                lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                                lookup.unreflectSetter(field).asType(SETTER_TYPE)
+                        ));
+                    }
+                }
+                if (boundFields.isEmpty() || Modifier.isAbstract(type.getModifiers()) || !Modifier.isPublic(type.getModifiers())) {
+                    return null;
+                }
+                // SolrJ instantiates beans with Class.newInstance() which fails on non-public constructors
+                Constructor<?> noArgConstructor = type.getConstructor();
+                return new BeanBinder(lookup.unreflectConstructor(noArgConstructor).asType(CONSTRUCTOR_TYPE), boundFields.toArray(new BoundField[boundFields.size()]));
+            } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private static boolean isChild(Field annotation) {
+            try {
+                return CHILD_ATTRIBUTE != null && Boolean.TRUE.equals(CHILD_ATTRIBUTE.invoke(annotation));
+            } catch (Exception e) {
+                return true;
+            }
+        }
+
+        private static void makeAccessible(AccessibleObject accessibleObject) {
+            if (!accessibleObject.isAccessible()) {
+                accessibleObject.setAccessible(true);
+            }
+        }
+
+        private Object toBean(SolrDocument solrDocument) {
+            Object bean;
+            try {
+                bean = (Object) constructor.invokeExact();
+            } catch (Throwable t) {
+                throw new BindingException("Could not instantiate object of " + constructor.type().returnType(), asException(t));
+            }
+            for (BoundField field : fields) {
+                field.inject(bean, solrDocument);
+            }
+            return bean;
+        }
+
+        private SolrInputDocument toSolrInputDocument(Object bean) {
+            SolrInputDocument solrInputDocument = new SolrInputDocument();
+            for (BoundField field : fields) {
+                solrInputDocument.setField(field.name, field.get(bean), 1.0f);
+            }
+            return solrInputDocument;
+        }
+    }
+
+    private static class BoundField {
+        private final String name;
+        private final Class<?> type;
+        private final boolean list;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private BoundField(String name, Class<?> type, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            // same list types as SolrJ, other collection types are bound as scalars
+            this.list = type == Collection.class || type == List.class || type == ArrayList.class;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private Object get(Object bean) {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (Throwable t) {
+                throw new BindingException("Exception while getting value of field " + name, asException(t));
+            }
+        }
+
+        private void inject(Object bean, SolrDocument solrDocument) {
+            Object value = solrDocument.getFieldValue(name);
+            if (value == null) {
+                return;
+            }
+            if (list) {
+                if (!(value instanceof List)) {
+                    List<Object> values = new ArrayList<>();
+                    values.add(value);
+                    value = values;
+                }
+            } else if (type == ByteBuffer.class && value instanceof byte[]) {
+                value = ByteBuffer.wrap((byte[]) value);
+            } else if (type.isPrimitive()) {
+                value = widen(value, type);
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable t) {
+                throw new BindingException("Exception while setting value : " + value + " on field " + name, asException(t));
+            }
+        }
+    }
+
+    /**
+     * Applies the widening primitive conversions that {@link java.lang.reflect.Field#set(Object, Object)} (used by
+     * SolrJ) applies but method handles do not.
+     */
+    private static Object widen(Object value, Class<?> type) {
+        if (value instanceof Character) {
+            char character = (Character) value;
+            if (type == int.class) {
+                return (int) character;
+            } else if (type == long.class) {
+                return (long) character;
+            } else if (type == float.class) {
+                return (float) character;
+            } else if (type == double.class) {
+                return (double) character;
+            }
+            return value;
+        }
+        int rank = WIDENING_ORDER.indexOf(value.getClass());
+        if (rank < 0) {
+            return value;
+        }
+        Number number = (Number) value;
+        if (type == short.class && rank < 1) {
+            return number.shortValue();
+        } else if (type == int.class && rank < 2) {
+            return number.intValue();
+        } else if (type == long.class && rank < 3) {
+            return number.longValue();
+        } else if (type == float.class && rank < 4) {
+            return number.floatValue();
+        } else if (type == double.class && rank < 5) {
+            return number.doubleValue();
+        }
+        return value;
+    }
+
+    private static Exception asException(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return (Exception) t;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.IOException;
+
+/**
+ * Base class of the decorators added by the plugin around the configured Solr clients. Closing a decorator does
+ * nothing as the lifecycle of the decorated client is managed by the plugin.
+ */
+abstract class ForwardingSolrClient extends SolrClient {
+    protected final SolrClient delegate;
+
+    ForwardingSolrClient(SolrClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        return delegate.request(request, collection);
+    }
+
+    @Override
+    public DocumentObjectBinder getBinder() {
+        return delegate.getBinder();
+    }
+
+    public void shutdown() {
+        // the decorated client lifecycle is managed by the plugin
+    }
+
+    public void close() throws IOException {
+        // the decorated client lifecycle is managed by the plugin
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.seedstack.solr.SolrConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merges the commits of concurrent transactions of a client. Transactions committing within the configured window
+ * (up to a maximum number of transactions) are sent as one update request per collection followed by one commit per
+ * collection. If the merged group fails, the updates already sent are rolled back and each transaction of the group is
+ * retried on its own so every caller gets its own outcome. When the client cannot roll back (SolrCloud), the whole
+ * group fails instead since the partially sent updates would be committed by the retries. Callers block until their
+ * group has been committed, up to the configured timeout. A transaction committing while no other one is does not wait
+ * for the window and is committed right away.
+ */
+class GroupCommitter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupCommitter.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+    private final String clientName;
+    private final SolrClient solrClient;
+    private final SolrConfig.ClientConfig.TransactionConfig transactionConfig;
+    private final boolean rollbackSupported;
+    private final LinkedBlockingQueue<Submission> submissions = new LinkedBlockingQueue<>();
+    private final AtomicInteger committing = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    GroupCommitter(String clientName, SolrClient solrClient, SolrConfig.ClientConfig.TransactionConfig transactionConfig, boolean rollbackSupported) {
+        this.clientName = clientName;
+        this.solrClient = solrClient;
+        this.transactionConfig = transactionConfig;
+        this.rollbackSupported = rollbackSupported;
+        this.worker = new Thread(this::run, String.format("solr-group-commit-%s", clientName));
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    void commit(Map<String, List<UpdateRequest>> bufferedUpdates, Set<String> collections) throws SolrServerException, IOException {
+        Submission submission = new Submission(bufferedUpdates, collections);
+        if (committing.incrementAndGet() == 1 || closed) {
+            // nothing to group with
+            try {
+                submission.execute();
+            } finally {
+                committing.decrementAndGet();
+            }
+            return;
+        }
+
+        try {
+            submissions.add(submission);
+            if (closed && submissions.remove(submission)) {
+                // the worker may have stopped before taking it
+                submission.execute();
+                return;
+            }
+            await(submission);
+        } finally {
+            committing.decrementAndGet();
+        }
+    }
+
+    void close() {
+        closed = true;
+        try {
+            worker.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await(Submission submission) throws SolrServerException, IOException {
+        try {
+            submission.result.get(transactionConfig.getGroupCommitTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (submissions.remove(submission)) {
+                throw new SolrServerException(String.format("Group commit of Solr client %s not started after %d ms, transaction not committed", clientName, transactionConfig.getGroupCommitTimeout()), e);
+            } else {
+                throw new SolrServerException(String.format("Group commit of Solr client %s not completed after %d ms, transaction outcome unknown", clientName, transactionConfig.getGroupCommitTimeout()), e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Interrupted while waiting for group commit of Solr client " + clientName, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SolrServerException) {
+                throw (SolrServerException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new SolrServerException(cause);
+            }
+        }
+    }
+
+    private void run() {
+        while (!closed || !submissions.isEmpty()) {
+            try {
+                Submission first = submissions.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<Submission> group = new ArrayList<>();
+                group.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(transactionConfig.getGroupCommitWindow());
+                // no need to wait for the window if all committing transactions are already in the group
+                while (group.size() < transactionConfig.getGroupCommitMaxTransactions() && committing.get() > group.size()) {
+                    long remaining = deadline - System.nanoTime();
+                    Submission next = remaining > 0 ? submissions.poll(remaining, TimeUnit.NANOSECONDS) : submissions.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void commitGroup(List<Submission> group) {
+        if (group.size() > 1) {
+            Set<String> mergedCollections = new LinkedHashSet<>();
+            try {
+                Map<String, UpdateBuffer> mergedUpdates = new LinkedHashMap<>();
+                for (Submission submission : group) {
+                    for (Map.Entry<String, List<UpdateRequest>> bufferedUpdate : submission.bufferedUpdates.entrySet()) {
+                        UpdateBuffer updateBuffer = mergedUpdates.computeIfAbsent(bufferedUpdate.getKey(), c -> new UpdateBuffer(transactionConfig.getBatchSize()));
+                        bufferedUpdate.getValue().forEach(updateBuffer::append);
+                    }
+                    mergedCollections.addAll(submission.collections);
+                }
+                for (Map.Entry<String, UpdateBuffer> mergedUpdate : mergedUpdates.entrySet()) {
+                    for (UpdateRequest chunk : mergedUpdate.getValue().getChunks()) {
+                        solrClient.request(chunk, mergedUpdate.getKey());
+                    }
+                }
+                TransactionalSolrClient.commit(solrClient, transactionConfig.getCommitMode(), mergedCollections);
+                group.forEach(submission -> submission.result.complete(null));
+                return;
+            } catch (Exception e) {
+                // the updates of the group sent before the failure must not be committed by the retries
+                if (!rollbackSupported) {
+                    LOGGER.warn("Group commit of {} transactions failed on Solr client {} which cannot roll back, failing all of them", group.size(), clientName, e);
+                    group.forEach(submission -> submission.result.completeExceptionally(e));
+                    return;
+                }
+                try {
+                    rollback(mergedCollections);
+                } catch (Exception rollbackException) {
+                    e.addSuppressed(rollbackException);
+                    LOGGER.warn("Group commit of {} transactions failed on Solr client {} and could not be rolled back, failing all of them", group.size(), clientName, e);
+                    group.forEach(submission -> submission.result.completeExceptionally(e));
+                    return;
+                }
+                LOGGER.warn("Group commit of {} transactions failed on Solr client {}, committing them one by one", group.size(), clientName, e);
+            }
+
+            for (Submission submission : group) {
+                try {
+                    submission.execute();
+                    submission.result.complete(null);
+                } catch (Throwable t) {
+                    // nor the partially sent updates of a failed retry by the next ones
+                    try {
+                        rollback(submission.collections);
+                    } catch (Exception rollbackException) {
+                        t.addSuppressed(rollbackException);
+                    }
+                    submission.result.completeExceptionally(t);
+                }
+            }
+            return;
+        }
+
+        Submission submission = group.get(0);
+        try {
+            submission.execute();
+            submission.result.complete(null);
+        } catch (Throwable t) {
+            submission.result.completeExceptionally(t);
+        }
+    }
+
+    private void rollback(Set<String> collections) throws SolrServerException, IOException {
+        for (String collection : collections) {
+            solrClient.rollback(collection);
+        }
+    }
+
+    private class Submission {
+        private final Map<String, List<UpdateRequest>> bufferedUpdates;
+        private final Set<String> collections;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private Submission(Map<String, List<UpdateRequest>> bufferedUpdates, Set<String> collections) {
+            this.bufferedUpdates = bufferedUpdates;
+            this.collections = collections;
+        }
+
+        private void execute() throws SolrServerException, IOException {
+            for (Map.Entry<String, List<UpdateRequest>> bufferedUpdate : bufferedUpdates.entrySet()) {
+                for (UpdateRequest chunk : bufferedUpdate.getValue()) {
+                    solrClient.request(chunk, bufferedUpdate.getKey());
+                }
+            }
+            TransactionalSolrClient.commit(solrClient, transactionConfig.getCommitMode(), collections);
+        }
+    }
+}
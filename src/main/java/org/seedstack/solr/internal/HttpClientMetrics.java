@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.impl.LBHttpSolrClient;
+import org.seedstack.solr.SolrMetrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Reports the size of HTTP messages and the state of the connection pool of HTTP-based clients to {@link SolrMetrics}.
+ * The HTTP clients of SolrJ 5.2.1 are built on the deprecated HttpClient 4.3 API (see {@link SharedConnectionPool}).
+ */
+@SuppressWarnings("deprecation")
+final class HttpClientMetrics {
+    private HttpClientMetrics() {
+        // no instantiation allowed
+    }
+
+    static void instrument(String clientName, SolrClient solrClient, SolrMetrics solrMetrics) {
+        HttpClient httpClient = httpClientOf(solrClient);
+        if (httpClient == null) {
+            return;
+        }
+
+        if (httpClient instanceof AbstractHttpClient) {
+            AbstractHttpClient abstractHttpClient = (AbstractHttpClient) httpClient;
+            abstractHttpClient.addRequestInterceptor((request, context) -> {
+                if (request instanceof HttpEntityEnclosingRequest) {
+                    HttpEntityEnclosingRequest entityEnclosingRequest = (HttpEntityEnclosingRequest) request;
+                    HttpEntity entity = entityEnclosingRequest.getEntity();
+                    if (entity != null && !(entity instanceof CountingRequestEntity)) {
+                        // last in chain to count the body as sent (compressed if so)
+                        entityEnclosingRequest.setEntity(new CountingRequestEntity(entity, count -> solrMetrics.recordBytes(clientName, count, 0)));
+                    }
+                }
+            });
+            // first in chain to count the body as received, before any decompression
+            abstractHttpClient.addResponseInterceptor((response, context) -> {
+                HttpEntity entity = response.getEntity();
+                if (entity != null && !(entity instanceof CountingResponseEntity)) {
+                    response.setEntity(new CountingResponseEntity(entity, count -> solrMetrics.recordBytes(clientName, 0, count)));
+                }
+            }, 0);
+        }
+
+        ClientConnectionManager connectionManager = httpClient.getConnectionManager();
+        if (connectionManager instanceof PoolingClientConnectionManager) {
+            PoolingClientConnectionManager pool = (PoolingClientConnectionManager) connectionManager;
+            solrMetrics.registerGauge(clientName, "connections.leased", () -> pool.getTotalStats().getLeased());
+            solrMetrics.registerGauge(clientName, "connections.available", () -> pool.getTotalStats().getAvailable());
+            solrMetrics.registerGauge(clientName, "connections.pending", () -> pool.getTotalStats().getPending());
+            solrMetrics.registerGauge(clientName, "connections.max", () -> pool.getTotalStats().getMax());
+        }
+    }
+
+    static HttpClient httpClientOf(SolrClient solrClient) {
+        if (solrClient instanceof HttpSolrClient) {
+            return ((HttpSolrClient) solrClient).getHttpClient();
+        } else if (solrClient instanceof LBHttpSolrClient) {
+            return ((LBHttpSolrClient) solrClient).getHttpClient();
+        } else if (solrClient instanceof CloudSolrClient) {
+            return ((CloudSolrClient) solrClient).getLbClient().getHttpClient();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Counts the bytes of a request body while it is written. SolrJ streams update bodies with an unknown length.
+     */
+    private static class CountingRequestEntity extends HttpEntityWrapper {
+        private final LongConsumer recorder;
+
+        private CountingRequestEntity(HttpEntity wrappedEntity, LongConsumer recorder) {
+            super(wrappedEntity);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            CountingOutputStream countingOutputStream = new CountingOutputStream(outStream);
+            try {
+                super.writeTo(countingOutputStream);
+            } finally {
+                recorder.accept(countingOutputStream.getCount());
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes of a response body while it is read, recording them at the end of the stream or when it is
+     * closed, whichever comes first.
+     */
+    private static class CountingResponseEntity extends HttpEntityWrapper {
+        private final LongConsumer recorder;
+        private InputStream content;
+
+        private CountingResponseEntity(HttpEntity wrappedEntity, LongConsumer recorder) {
+            super(wrappedEntity);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public synchronized InputStream getContent() throws IOException {
+            // the stream is obtained again to be consumed when the response is released, so it is wrapped only once
+            if (content == null) {
+                InputStream wrappedContent = super.getContent();
+                if (wrappedContent == null) {
+                    return wrappedContent;
+                }
+                content = new CountingInputStream(wrappedContent, recorder);
+            }
+            return content;
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            try (InputStream inputStream = getContent()) {
+                ByteStreams.copy(inputStream, outStream);
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final LongConsumer recorder;
+        private long count;
+        private boolean recorded;
+
+        private CountingInputStream(InputStream in, LongConsumer recorder) {
+            super(in);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result >= 0) {
+                count++;
+            } else {
+                record();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result >= 0) {
+                count += result;
+            } else {
+                record();
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(n);
+            count += result;
+            return result;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                record();
+            }
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                recorder.accept(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.util.NamedList;
+import org.seedstack.solr.SolrMetrics;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reports the latency and outcome of each request made on a client to {@link SolrMetrics}.
+ */
+class InstrumentedSolrClient extends ForwardingSolrClient {
+    private final String clientName;
+    private final SolrMetrics solrMetrics;
+
+    InstrumentedSolrClient(String clientName, SolrClient delegate, SolrMetrics solrMetrics) {
+        super(delegate);
+        this.clientName = clientName;
+        this.solrMetrics = solrMetrics;
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        boolean success = false;
+        NamedList<Object> response = null;
+        long start = System.nanoTime();
+        try {
+            response = delegate.request(request, collection);
+            success = true;
+            return response;
+        } finally {
+            solrMetrics.recordRequest(clientName, requestType(request), System.nanoTime() - start, qTime(response), documents(request), success);
+        }
+    }
+
+    static SolrMetrics.RequestType requestType(SolrRequest request) {
+        if (request instanceof QueryRequest) {
+            return SolrMetrics.RequestType.QUERY;
+        } else if (request instanceof AbstractUpdateRequest) {
+            return SolrMetrics.RequestType.UPDATE;
+        } else {
+            return SolrMetrics.RequestType.ADMIN;
+        }
+    }
+
+    static int qTime(NamedList<Object> response) {
+        if (response != null) {
+            Object responseHeader = response.get("responseHeader");
+            if (responseHeader instanceof NamedList) {
+                Object qTime = ((NamedList<?>) responseHeader).get("QTime");
+                if (qTime instanceof Number) {
+                    return ((Number) qTime).intValue();
+                }
+            }
+        }
+        return -1;
+    }
+
+    static int documents(SolrRequest request) {
+        if (request instanceof UpdateRequest) {
+            List<?> documents = ((UpdateRequest) request).getDocuments();
+            if (documents != null) {
+                return documents.size();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.LBHttpSolrClient;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.common.util.NamedList;
+import org.seedstack.solr.SolrConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Spreads the requests of a load-balanced client over its servers with the power of two choices: two servers are
+ * picked at random and the one with the lowest moving average of latency is tried first, the other one second and the
+ * rest in random order. Averages decay while a server is not measured, so a server penalized by a latency spike gets
+ * probed again and recovers. When hedging is enabled, a query still running after a percentile of the recent query
+ * latencies is duplicated on the second server, the first successful response is used and the other request is
+ * cancelled.
+ */
+class LatencyAwareSolrClient extends ForwardingSolrClient {
+    private static final int SAMPLE_COUNT = 256;
+    private static final int PERCENTILE_REFRESH_INTERVAL = 32;
+    private static final double FAILURE_PENALTY_FACTOR = 2;
+    private final String clientName;
+    private final LBHttpSolrClient lbHttpSolrClient;
+    private final SolrConfig.ClientConfig.LBHttpClientConfig lbHttpClientConfig;
+    private final Map<String, ServerStats> serverStats = new LinkedHashMap<>();
+    private final long halfLifeNanos;
+    private final long[] samples = new long[SAMPLE_COUNT];
+    private final ThreadPoolExecutor hedgeExecutor;
+    private int sampleIndex;
+    private int sampleCount;
+    private int samplesSinceRefresh;
+    private volatile long hedgeDelayNanos;
+
+    LatencyAwareSolrClient(String clientName, LBHttpSolrClient lbHttpSolrClient, Collection<String> urls, SolrConfig.ClientConfig.LBHttpClientConfig lbHttpClientConfig) {
+        super(lbHttpSolrClient);
+        this.clientName = clientName;
+        this.lbHttpSolrClient = lbHttpSolrClient;
+        this.lbHttpClientConfig = lbHttpClientConfig;
+        this.halfLifeNanos = TimeUnit.MILLISECONDS.toNanos(lbHttpClientConfig.getLatencyHalfLife());
+        for (String url : urls) {
+            serverStats.put(normalize(url), new ServerStats());
+        }
+        if (lbHttpClientConfig.isHedging()) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.hedgeExecutor = new ThreadPoolExecutor(
+                    0,
+                    lbHttpClientConfig.getHedgeThreadCount(),
+                    60,
+                    TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, String.format("solr-hedge-%s-%d", clientName, threadIndex.incrementAndGet()));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+        } else {
+            this.hedgeExecutor = null;
+        }
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        List<String> servers = orderedServers();
+        if (hedgeExecutor != null && request instanceof QueryRequest && servers.size() > 1 && hedgeDelayNanos > 0) {
+            return hedgedRequest(request, collection, servers);
+        } else {
+            return attempt(request, collection, servers);
+        }
+    }
+
+    void close() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    List<String> orderedServers() {
+        List<String> servers = new ArrayList<>(serverStats.keySet());
+        Collections.shuffle(servers, ThreadLocalRandom.current());
+        if (servers.size() > 1) {
+            long now = System.nanoTime();
+            if (serverStats.get(servers.get(1)).getAverage(now, halfLifeNanos) < serverStats.get(servers.get(0)).getAverage(now, halfLifeNanos)) {
+                Collections.swap(servers, 0, 1);
+            }
+        }
+        return servers;
+    }
+
+    double averageOf(String server) {
+        return serverStats.get(normalize(server)).getAverage(System.nanoTime(), halfLifeNanos);
+    }
+
+    private NamedList<Object> hedgedRequest(SolrRequest request, String collection, List<String> servers) throws SolrServerException, IOException {
+        CompletableFuture<NamedList<Object>> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Future<?> primary;
+        try {
+            // the blocking SolrJ request cannot be abandoned, so the primary runs on the pool for the caller to be able
+            // to return the response of the hedge
+            primary = hedgeExecutor.submit(() -> complete(result, running, failure, request, collection, servers));
+        } catch (RejectedExecutionException e) {
+            // all hedging threads are busy
+            return attempt(request, collection, servers);
+        }
+
+        Future<?> hedge = null;
+        try {
+            try {
+                return result.get(Math.max(hedgeDelayNanos, TimeUnit.MILLISECONDS.toNanos(lbHttpClientConfig.getMinHedgeDelay())), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // primary is slow, hedge on the second server below
+            }
+
+            running.incrementAndGet();
+            if (!result.isDone()) {
+                List<String> hedgeServers = new ArrayList<>(servers);
+                Collections.swap(hedgeServers, 0, 1);
+                try {
+                    hedge = hedgeExecutor.submit(() -> complete(result, running, failure, request, collection, hedgeServers));
+                } catch (RejectedExecutionException e) {
+                    // all hedging threads are busy, wait for the primary only
+                    if (running.decrementAndGet() == 0) {
+                        result.completeExceptionally(failure.get());
+                    }
+                }
+            }
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Interrupted while waiting for Solr client " + clientName, e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } finally {
+            // the loser is not needed anymore (no effect on the winner which is already done)
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private void complete(CompletableFuture<NamedList<Object>> result, AtomicInteger running, AtomicReference<Throwable> failure, SolrRequest request, String collection, List<String> servers) {
+        try {
+            result.complete(attempt(request, collection, servers));
+        } catch (Throwable t) {
+            // the request fails only if the other one failed too
+            failure.set(t);
+            if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    private NamedList<Object> attempt(SolrRequest request, String collection, List<String> servers) throws SolrServerException, IOException {
+        List<String> urls = new ArrayList<>(servers.size());
+        for (String server : servers) {
+            urls.add(collection == null ? server : server + "/" + collection);
+        }
+
+        // when all servers fail or the failure is not server-specific (like a bad request which LBHttpSolrClient does
+        // not retry), no server is to blame so the failure is not recorded
+        long start = System.nanoTime();
+        LBHttpSolrClient.Rsp rsp = lbHttpSolrClient.request(new LBHttpSolrClient.Req(request, urls));
+        long now = System.nanoTime();
+        long latency = now - start;
+
+        int serverIndex = servers.indexOf(serverOf(rsp.getServer(), collection));
+        if (serverIndex >= 0) {
+            // servers tried before the one which responded failed or are known to be down
+            for (int i = 0; i < serverIndex; i++) {
+                serverStats.get(servers.get(i)).penalize(latency, now, halfLifeNanos);
+            }
+            serverStats.get(servers.get(serverIndex)).record(latency, lbHttpClientConfig.getLatencySmoothing(), now, halfLifeNanos);
+        }
+        if (request instanceof QueryRequest) {
+            recordSample(latency);
+        }
+        return rsp.getResponse();
+    }
+
+    private String serverOf(String url, String collection) {
+        if (url == null) {
+            return null;
+        }
+        if (collection != null && url.endsWith("/" + collection)) {
+            url = url.substring(0, url.length() - collection.length() - 1);
+        }
+        return normalize(url);
+    }
+
+    private void recordSample(long latency) {
+        synchronized (samples) {
+            samples[sampleIndex] = latency;
+            sampleIndex = (sampleIndex + 1) % SAMPLE_COUNT;
+            sampleCount = Math.min(sampleCount + 1, SAMPLE_COUNT);
+            if (++samplesSinceRefresh >= PERCENTILE_REFRESH_INTERVAL) {
+                samplesSinceRefresh = 0;
+                long[] sorted = Arrays.copyOf(samples, sampleCount);
+                Arrays.sort(sorted);
+                hedgeDelayNanos = sorted[Math.min(sampleCount - 1, sampleCount * lbHttpClientConfig.getHedgePercentile() / 100)];
+            }
+        }
+    }
+
+    private static String normalize(String url) {
+        // same normalization as LBHttpSolrClient
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static SolrServerException unwrap(Throwable throwable) throws IOException {
+        if (throwable instanceof SolrServerException) {
+            return (SolrServerException) throwable;
+        } else if (throwable instanceof IOException) {
+            throw (IOException) throwable;
+        } else if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else {
+            return new SolrServerException(throwable);
+        }
+    }
+
+    private static class ServerStats {
+        private double average;
+        private long updatedAt;
+
+        synchronized double getAverage(long now, long halfLifeNanos) {
+            // halves every half-life without measurement, so an idle server ends up being tried again
+            return average == 0 ? 0 : average * Math.pow(0.5, (double) (now - updatedAt) / halfLifeNanos);
+        }
+
+        synchronized void record(long latency, double smoothing, long now, long halfLifeNanos) {
+            double current = getAverage(now, halfLifeNanos);
+            average = current == 0 ? latency : smoothing * latency + (1 - smoothing) * current;
+            updatedAt = now;
+        }
+
+        synchronized void penalize(long elapsed, long now, long halfLifeNanos) {
+            average = Math.max(getAverage(now, halfLifeNanos) * FAILURE_PENALTY_FACTOR, elapsed);
+            updatedAt = now;
+        }
+    }
+}
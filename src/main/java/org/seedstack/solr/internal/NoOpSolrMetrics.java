@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.seedstack.solr.SolrMetrics;
+
+import java.util.function.Supplier;
+
+/**
+ * Used when no metrics implementation is configured.
+ */
+class NoOpSolrMetrics implements SolrMetrics {
+    @Override
+    public void recordRequest(String clientName, RequestType requestType, long wallTimeNanos, int qTime, int documents, boolean success) {
+        // no metrics
+    }
+
+    @Override
+    public void recordBytes(String clientName, long bytesSent, long bytesReceived) {
+        // no metrics
+    }
+
+    @Override
+    public void recordCommit(String clientName, long durationNanos) {
+        // no metrics
+    }
+
+    @Override
+    public void recordRollback(String clientName) {
+        // no metrics
+    }
+
+    @Override
+    public void recordTransactionFailure(String clientName) {
+        // no metrics
+    }
+
+    @Override
+    public void registerGauge(String clientName, String gaugeName, Supplier<Number> gauge) {
+        // no metrics
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips the body of update requests whose size reaches a threshold. SolrJ streams update bodies with an unknown
+ * length, so the body is buffered until the threshold is reached and then compressed in memory: only small bodies are
+ * kept uncompressed. The Solr server (or a proxy in front of it) must be able to inflate gzip-encoded requests.
+ */
+class RequestCompressionInterceptor implements HttpRequestInterceptor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestCompressionInterceptor.class);
+    private static final String GZIP = "gzip";
+    private final int threshold;
+    private final int level;
+
+    RequestCompressionInterceptor(int threshold, int level) {
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    static void install(String clientName, HttpClient httpClient, int threshold, int level) {
+        if (httpClient instanceof AbstractHttpClient) {
+            // first in chain so the standard interceptors compute the headers of the compressed entity
+            ((AbstractHttpClient) httpClient).addRequestInterceptor(new RequestCompressionInterceptor(threshold, level), 0);
+        } else {
+            LOGGER.warn("Request compression is not supported by the HTTP client of Solr client {}, ignoring", clientName);
+        }
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest) || !request.getRequestLine().getUri().contains("/update")) {
+            return;
+        }
+
+        HttpEntityEnclosingRequest entityEnclosingRequest = (HttpEntityEnclosingRequest) request;
+        HttpEntity entity = entityEnclosingRequest.getEntity();
+        if (entity == null || entity.getContentEncoding() != null || (entity.getContentLength() >= 0 && entity.getContentLength() < threshold)) {
+            return;
+        }
+
+        ThresholdOutputStream outputStream = new ThresholdOutputStream();
+        entity.writeTo(outputStream);
+        outputStream.close();
+
+        ByteArrayEntity bufferedEntity = new ByteArrayEntity(outputStream.toByteArray());
+        bufferedEntity.setContentType(entity.getContentType());
+        if (outputStream.isCompressed()) {
+            bufferedEntity.setContentEncoding(GZIP);
+        }
+        entityEnclosingRequest.setEntity(bufferedEntity);
+    }
+
+    private class ThresholdOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream current = buffer;
+        private boolean compressed;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!compressed && buffer.size() + len >= threshold) {
+                byte[] raw = buffer.toByteArray();
+                buffer.reset();
+                current = new GZIPOutputStream(buffer, 8192) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+                current.write(raw);
+                compressed = true;
+            }
+            current.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            current.close();
+        }
+
+        boolean isCompressed() {
+            return compressed;
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.seedstack.solr.SolrClientUnavailableException;
+import org.seedstack.solr.SolrConfig;
+import org.seedstack.solr.SolrMetrics;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects the application from a degraded Solr client. The bulkhead limits the number of concurrent requests and the
+ * circuit breaker rejects requests once the failure rate (slow calls counting as failures) over a window of recent
+ * requests reaches a threshold. After a while, a few probe requests are let through to decide whether to close the
+ * circuit again. Client errors (4xx) do not count as failures. The outcome of a request only counts for the state of the
+ * circuit it started in, so the late response of a request started before a transition is ignored. Rejections are
+ * reported with {@link SolrClientUnavailableException}.
+ */
+class ResilientSolrClient extends ForwardingSolrClient {
+    private final String clientName;
+    private final SolrConfig.ClientConfig.CircuitBreakerConfig circuitBreakerConfig;
+    private final SolrConfig.ClientConfig.BulkheadConfig bulkheadConfig;
+    private final Semaphore bulkhead;
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    ResilientSolrClient(String clientName, SolrClient delegate, SolrConfig.ClientConfig.CircuitBreakerConfig circuitBreakerConfig, SolrConfig.ClientConfig.BulkheadConfig bulkheadConfig, SolrMetrics solrMetrics) {
+        super(delegate);
+        this.clientName = clientName;
+        this.circuitBreakerConfig = circuitBreakerConfig;
+        this.bulkheadConfig = bulkheadConfig;
+        this.bulkhead = bulkheadConfig.getMaxConcurrentCalls() == null ? null : new Semaphore(bulkheadConfig.getMaxConcurrentCalls());
+        this.window = new boolean[circuitBreakerConfig.getWindowSize()];
+
+        if (circuitBreakerConfig.isEnabled()) {
+            solrMetrics.registerGauge(clientName, "circuitBreaker.state", () -> getState().ordinal());
+        }
+        if (bulkhead != null) {
+            solrMetrics.registerGauge(clientName, "bulkhead.available", bulkhead::availablePermits);
+        }
+    }
+
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        acquireBulkhead();
+        try {
+            long circuitGeneration = circuitBreakerConfig.isEnabled() ? acquireCircuit() : 0;
+            if (circuitGeneration < 0) {
+                throw new SolrClientUnavailableException(clientName, SolrClientUnavailableException.Reason.CIRCUIT_OPEN);
+            }
+
+            boolean failure = true;
+            long start = System.nanoTime();
+            try {
+                NamedList<Object> response = delegate.request(request, collection);
+                failure = false;
+                return response;
+            } catch (SolrException e) {
+                failure = e.code() < 400 || e.code() >= 500;
+                throw e;
+            } finally {
+                if (circuitBreakerConfig.isEnabled()) {
+                    long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    boolean slow = circuitBreakerConfig.getSlowCallDuration() > 0 && duration >= circuitBreakerConfig.getSlowCallDuration();
+                    releaseCircuit(circuitGeneration, failure || slow);
+                }
+            }
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    private void acquireBulkhead() throws SolrServerException {
+        if (bulkhead != null) {
+            boolean acquired;
+            try {
+                acquired = bulkhead.tryAcquire(bulkheadConfig.getMaxWait(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SolrServerException("Interrupted while waiting for Solr client " + clientName, e);
+            }
+            if (!acquired) {
+                throw new SolrClientUnavailableException(clientName, SolrClientUnavailableException.Reason.BULKHEAD_FULL);
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the generation of the circuit state the request is let through in or -1 if it is rejected.
+     */
+    private synchronized long acquireCircuit() {
+        switch (state) {
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < circuitBreakerConfig.getOpenDuration()) {
+                    return -1;
+                }
+                state = State.HALF_OPEN;
+                generation++;
+                halfOpenPermits = 0;
+                halfOpenSuccesses = 0;
+                // fall through to let the first probes in
+            case HALF_OPEN:
+                if (halfOpenPermits < circuitBreakerConfig.getHalfOpenCalls()) {
+                    halfOpenPermits++;
+                    return generation;
+                }
+                return -1;
+            case CLOSED:
+            default:
+                return generation;
+        }
+    }
+
+    private synchronized void releaseCircuit(long requestGeneration, boolean failure) {
+        if (requestGeneration != generation) {
+            // late result of a request started in a previous state of the circuit
+            return;
+        }
+        switch (state) {
+            case HALF_OPEN:
+                if (failure) {
+                    openCircuit();
+                } else if (++halfOpenSuccesses >= circuitBreakerConfig.getHalfOpenCalls()) {
+                    closeCircuit();
+                }
+                break;
+            case CLOSED:
+                if (windowCalls == window.length) {
+                    if (window[windowIndex]) {
+                        windowFailures--;
+                    }
+                } else {
+                    windowCalls++;
+                }
+                window[windowIndex] = failure;
+                if (failure) {
+                    windowFailures++;
+                }
+                windowIndex = (windowIndex + 1) % window.length;
+                if (windowCalls >= circuitBreakerConfig.getMinimumCalls() && windowFailures * 100 >= windowCalls * circuitBreakerConfig.getFailureRateThreshold()) {
+                    openCircuit();
+                }
+                break;
+            case OPEN:
+            default:
+                // cannot happen as requests are never let through an open circuit
+                break;
+        }
+    }
+
+    private void openCircuit() {
+        state = State.OPEN;
+        generation++;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void closeCircuit() {
+        state = State.CLOSED;
+        generation++;
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+    }
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.seedstack.solr.SolrConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection pool shared by all the HTTP-based clients referencing it. Each client gets its own HTTP client, so
+ * per-client parameters like timeouts stay independent, but connections are leased from the same pool. Expired and
+ * idle connections are evicted periodically by a background thread.
+ * <p>
+ * The deprecated HttpClient 4.3 API is required here: SolrJ 5.2.1 applies the timeouts of its clients through
+ * {@code HttpClient.getParams()}, which throws {@link UnsupportedOperationException} on the clients built by
+ * {@code HttpClientBuilder}, and it only manages the connections of {@link DefaultHttpClient} instances.
+ */
+@SuppressWarnings("deprecation")
+class SharedConnectionPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedConnectionPool.class);
+    private final String poolName;
+    private final SolrConfig.ConnectionPoolConfig connectionPoolConfig;
+    private final PoolingClientConnectionManager connectionManager;
+    private final ScheduledExecutorService evictor;
+
+    SharedConnectionPool(String poolName, SolrConfig.ConnectionPoolConfig connectionPoolConfig) {
+        this.poolName = poolName;
+        this.connectionPoolConfig = connectionPoolConfig;
+        this.connectionManager = new PoolingClientConnectionManager(SchemeRegistryFactory.createSystemDefault());
+        this.connectionManager.setMaxTotal(connectionPoolConfig.getMaxTotalConnections());
+        this.connectionManager.setDefaultMaxPerRoute(connectionPoolConfig.getMaxConnectionsPerRoute());
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "solr-pool-evictor-" + poolName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.evictor.scheduleWithFixedDelay(this::evict, connectionPoolConfig.getEvictionInterval(), connectionPoolConfig.getEvictionInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    DefaultHttpClient createHttpClient() {
+        DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager);
+        HttpConnectionParams.setTcpNoDelay(httpClient.getParams(), connectionPoolConfig.isTcpNoDelay());
+        if (connectionPoolConfig.getSocketBufferSize() != null) {
+            HttpConnectionParams.setSocketBufferSize(httpClient.getParams(), connectionPoolConfig.getSocketBufferSize());
+        }
+        long keepAlive = connectionPoolConfig.getKeepAlive();
+        httpClient.setKeepAliveStrategy((response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive < 0 ? keepAlive : Math.min(serverKeepAlive, keepAlive);
+        });
+        return httpClient;
+    }
+
+    PoolingClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    void close() {
+        evictor.shutdownNow();
+        connectionManager.shutdown();
+    }
+
+    private void evict() {
+        try {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(connectionPoolConfig.getIdleTimeout(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            LOGGER.warn(String.format("Unable to evict connections of Solr connection pool %s", poolName), e);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.seedstack.seed.SeedException;
+import org.seedstack.solr.SolrBulkIndexer;
+import org.seedstack.solr.SolrConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+class SolrBulkIndexerImpl implements SolrBulkIndexer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SolrBulkIndexerImpl.class);
+    private final String clientName;
+    private final SolrClient solrClient;
+    private final SolrConfig.ClientConfig.BulkConfig bulkConfig;
+    private final BlockingQueue<PendingDocument> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Object pendingLock = new Object();
+    // producers check the closed flag and enqueue under the read lock so nothing is enqueued once closed
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    private final AtomicLong indexedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private long pendingCount;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    SolrBulkIndexerImpl(String clientName, SolrClient solrClient, SolrConfig.ClientConfig.BulkConfig bulkConfig) {
+        this.clientName = clientName;
+        this.solrClient = solrClient;
+        this.bulkConfig = bulkConfig;
+        this.queue = new ArrayBlockingQueue<>(bulkConfig.getQueueSize());
+    }
+
+    @Override
+    public void add(SolrInputDocument document) {
+        add(document, null);
+    }
+
+    @Override
+    public void add(SolrInputDocument document, FailureCallback failureCallback) {
+        lifecycleLock.readLock().lock();
+        try {
+            if (closed) {
+                throw SeedException.createNew(SolrErrorCode.BULK_INDEXER_CLOSED).put("clientName", clientName);
+            }
+            startIfNecessary();
+            enqueue(new PendingDocument(document, failureCallback));
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addBean(Object bean) {
+        addBean(bean, null);
+    }
+
+    @Override
+    public void addBean(Object bean, FailureCallback failureCallback) {
+        add(solrClient.getBinder().toSolrInputDocument(bean), failureCallback);
+    }
+
+    @Override
+    public void flush() throws InterruptedException {
+        synchronized (pendingLock) {
+            while (pendingCount > 0) {
+                pendingLock.wait();
+            }
+        }
+    }
+
+    @Override
+    public long getPendingCount() {
+        synchronized (pendingLock) {
+            return pendingCount;
+        }
+    }
+
+    @Override
+    public long getIndexedCount() {
+        return indexedCount.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    void close() {
+        lifecycleLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // documents left behind by interrupted workers are failed so flush() never waits for them
+        List<PendingDocument> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            for (PendingDocument pendingDocument : remaining) {
+                failedCount.incrementAndGet();
+                notifyFailure(pendingDocument, SeedException.createNew(SolrErrorCode.BULK_INDEXER_CLOSED).put("clientName", clientName));
+            }
+            decrementPending(remaining.size());
+        }
+    }
+
+    private void enqueue(PendingDocument pendingDocument) {
+        incrementPending();
+        try {
+            switch (bulkConfig.getOverflowPolicy()) {
+                case BLOCK:
+                    queue.put(pendingDocument);
+                    break;
+                case DROP:
+                    if (!queue.offer(pendingDocument)) {
+                        decrementPending(1);
+                        droppedCount.incrementAndGet();
+                        notifyFailure(pendingDocument, SeedException.createNew(SolrErrorCode.BULK_INDEXER_QUEUE_FULL).put("clientName", clientName));
+                    }
+                    break;
+                case FAIL:
+                default:
+                    if (!queue.offer(pendingDocument)) {
+                        decrementPending(1);
+                        throw SeedException.createNew(SolrErrorCode.BULK_INDEXER_QUEUE_FULL).put("clientName", clientName);
+                    }
+                    break;
+            }
+        } catch (InterruptedException e) {
+            decrementPending(1);
+            Thread.currentThread().interrupt();
+            throw SeedException.wrap(e, SolrErrorCode.BULK_INDEXER_CLOSED).put("clientName", clientName);
+        }
+    }
+
+    private synchronized void startIfNecessary() {
+        if (!started) {
+            for (int i = 0; i < bulkConfig.getThreadCount(); i++) {
+                Thread worker = new Thread(this::drainQueue, String.format("solr-bulk-%s-%d", clientName, i));
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+            started = true;
+        }
+    }
+
+    private void drainQueue() {
+        List<PendingDocument> batch = new ArrayList<>(bulkConfig.getBatchSize());
+        while (!closed || !queue.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(bulkConfig.getFlushInterval());
+                while (batch.size() < bulkConfig.getBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingDocument pendingDocument = queue.poll(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                    if (pendingDocument == null) {
+                        break;
+                    }
+                    batch.add(pendingDocument);
+                    queue.drainTo(batch, bulkConfig.getBatchSize() - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+
+            if (!batch.isEmpty()) {
+                send(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<PendingDocument> batch) {
+        List<SolrInputDocument> documents = new ArrayList<>(batch.size());
+        for (PendingDocument pendingDocument : batch) {
+            documents.add(pendingDocument.document);
+        }
+
+        try {
+            solrClient.add(bulkConfig.getCollection(), documents);
+            indexedCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            if (isDocumentError(e)) {
+                LOGGER.debug("Bulk indexing of {} documents rejected by Solr client {}, retrying them one by one", batch.size(), clientName, e);
+                sendOneByOne(batch);
+            } else {
+                // Solr is unreachable or unavailable: re-sending each document would only multiply the failures
+                LOGGER.debug("Bulk indexing of {} documents failed on Solr client {}", batch.size(), clientName, e);
+                fail(batch, 0, e);
+            }
+        } finally {
+            decrementPending(batch.size());
+        }
+    }
+
+    private void sendOneByOne(List<PendingDocument> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingDocument pendingDocument = batch.get(i);
+            try {
+                solrClient.add(bulkConfig.getCollection(), pendingDocument.document);
+                indexedCount.incrementAndGet();
+            } catch (Exception e) {
+                if (isDocumentError(e)) {
+                    failedCount.incrementAndGet();
+                    notifyFailure(pendingDocument, e);
+                } else {
+                    fail(batch, i, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void fail(List<PendingDocument> batch, int fromIndex, Exception exception) {
+        for (PendingDocument pendingDocument : batch.subList(fromIndex, batch.size())) {
+            failedCount.incrementAndGet();
+            notifyFailure(pendingDocument, exception);
+        }
+    }
+
+    /**
+     * Tells if a failure is caused by the content of the request (4xx error) rather than by the server or the network,
+     * so that only the faulty documents fail when sent one by one.
+     */
+    private static boolean isDocumentError(Exception exception) {
+        if (exception instanceof SolrException) {
+            int code = ((SolrException) exception).code();
+            return code >= 400 && code < 500;
+        }
+        return false;
+    }
+
+    private void notifyFailure(PendingDocument pendingDocument, Exception exception) {
+        if (pendingDocument.failureCallback != null) {
+            try {
+                pendingDocument.failureCallback.onFailure(pendingDocument.document, exception);
+            } catch (Exception e) {
+                LOGGER.warn("Bulk indexing failure callback of Solr client {} failed", clientName, e);
+            }
+        } else {
+            LOGGER.warn("Unable to index document in background on Solr client {}", clientName, exception);
+        }
+    }
+
+    private void incrementPending() {
+        synchronized (pendingLock) {
+            pendingCount++;
+        }
+    }
+
+    private void decrementPending(int count) {
+        synchronized (pendingLock) {
+            pendingCount -= count;
+            if (pendingCount <= 0) {
+                pendingLock.notifyAll();
+            }
+        }
+    }
+
+    private static class PendingDocument {
+        private final SolrInputDocument document;
+        private final FailureCallback failureCallback;
+
+        private PendingDocument(SolrInputDocument document, FailureCallback failureCallback) {
+            this.document = document;
+            this.failureCallback = failureCallback;
+        }
+    }
+}
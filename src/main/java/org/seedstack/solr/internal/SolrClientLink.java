@@ -12,16 +12,24 @@ package org.seedstack.solr.internal;
 
 import org.apache.solr.client.solrj.SolrClient;
 import org.seedstack.seed.SeedException;
+import org.seedstack.seed.transaction.spi.TransactionMetadata;
 import org.seedstack.seed.transaction.spi.TransactionalLink;
+import org.seedstack.solr.SolrConfig;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.lang.reflect.Method;
+import java.util.Arrays;
 
+/**
+ * Holds the stack of Solr transactions of each thread. The per-thread context and the transactional clients it
+ * contains are kept and recycled once the outermost transaction ends, so a thread that has already run a transaction
+ * runs the next ones without allocating. The context is a single small object per thread, which keeps the footprint
+ * acceptable when transactions run on a large number of short-lived (e.g. virtual) threads.
+ */
 class SolrClientLink implements TransactionalLink<SolrClient> {
-    private final ThreadLocal<Deque<SolrClient>> perThreadObjectContainer = new ThreadLocal<Deque<SolrClient>>() {
+    private final ThreadLocal<TransactionContext> perThreadObjectContainer = new ThreadLocal<TransactionContext>() {
         @Override
-        protected Deque<SolrClient> initialValue() {
-            return new ArrayDeque<SolrClient>();
+        protected TransactionContext initialValue() {
+            return new TransactionContext();
         }
     };
 
@@ -36,26 +44,67 @@ class SolrClientLink implements TransactionalLink<SolrClient> {
         return solrClient;
     }
 
-    SolrClient getCurrentClient() {
-        SolrClient solrClient = this.perThreadObjectContainer.get().peek();
+    TransactionalSolrClient getCurrentClient() {
+        return this.perThreadObjectContainer.get().peek();
+    }
 
-        if (solrClient != null) {
-            return solrClient;
-        } else {
-            return null;
-        }
+    void initialize(TransactionMetadata transactionMetadata, Method invokingMethod) {
+        TransactionContext transactionContext = perThreadObjectContainer.get();
+        transactionContext.transactionMetadata = transactionMetadata;
+        transactionContext.invokingMethod = invokingMethod;
+    }
+
+    void cleanup() {
+        TransactionContext transactionContext = perThreadObjectContainer.get();
+        transactionContext.transactionMetadata = null;
+        transactionContext.invokingMethod = null;
     }
 
-    void push(SolrClient solrClient) {
-        perThreadObjectContainer.get().push(solrClient);
+    TransactionalSolrClient push(SolrClient solrClient, SolrConfig.ClientConfig.TransactionConfig transactionConfig, boolean trace) {
+        return perThreadObjectContainer.get().push(solrClient, transactionConfig, trace);
     }
 
-    SolrClient pop() {
-        Deque<SolrClient> solrClients = perThreadObjectContainer.get();
-        SolrClient solrClient = solrClients.pop();
-        if (solrClients.isEmpty()) {
-            perThreadObjectContainer.remove();
+    TransactionalSolrClient pop() {
+        return perThreadObjectContainer.get().pop();
+    }
+
+    private static class TransactionContext {
+        private static final int INITIAL_CAPACITY = 4;
+        private TransactionalSolrClient[] transactionalSolrClients = new TransactionalSolrClient[INITIAL_CAPACITY];
+        private int depth;
+        // metadata and method of the transactional invocation in progress, if known
+        private TransactionMetadata transactionMetadata;
+        private Method invokingMethod;
+
+        private TransactionalSolrClient peek() {
+            return depth > 0 ? transactionalSolrClients[depth - 1] : null;
+        }
+
+        private TransactionalSolrClient push(SolrClient solrClient, SolrConfig.ClientConfig.TransactionConfig transactionConfig, boolean trace) {
+            if (depth == transactionalSolrClients.length) {
+                transactionalSolrClients = Arrays.copyOf(transactionalSolrClients, depth * 2);
+            }
+            TransactionalSolrClient transactionalSolrClient = transactionalSolrClients[depth];
+            if (transactionalSolrClient == null) {
+                transactionalSolrClient = new TransactionalSolrClient();
+                transactionalSolrClients[depth] = transactionalSolrClient;
+            }
+            transactionalSolrClient.reset(solrClient, transactionConfig, transactionMetadata != null && transactionMetadata.isReadOnly());
+            if (trace) {
+                transactionalSolrClient.startTrace(invokingMethod);
+            }
+            transactionMetadata = null;
+            invokingMethod = null;
+            depth++;
+            return transactionalSolrClient;
+        }
+
+        private TransactionalSolrClient pop() {
+            if (depth == 0) {
+                throw SeedException.createNew(SolrErrorCode.ACCESSING_SOLR_CLIENT_OUTSIDE_TRANSACTION);
+            }
+            // the client is kept in the array to be reused by the next transaction at this depth
+            return transactionalSolrClients[--depth];
         }
-        return solrClient;
     }
 }
@@ -11,8 +11,20 @@ import org.seedstack.shed.exception.ErrorCode;
 
 enum SolrErrorCode implements ErrorCode {
     ACCESSING_SOLR_CLIENT_OUTSIDE_TRANSACTION,
+    ASYNC_REQUEST_REJECTED,
+    BULK_INDEXER_CLOSED,
+    BULK_INDEXER_QUEUE_FULL,
+    INCOMPARABLE_SORT_VALUES,
+    INCOMPLETE_EMBEDDED_CONFIGURATION,
+    NO_URL_CONFIGURED,
+    TRANSACTION_MARKED_AS_ROLLBACK_ONLY,
     UNABLE_TO_COMMIT,
     UNABLE_TO_CREATE_CLIENT,
     UNABLE_TO_ROLLBACK,
-    UNSUPPORTED_CLIENT_TYPE
+    UNABLE_TO_SCATTER_GATHER,
+    UNABLE_TO_STREAM,
+    UNKNOWN_CLIENT,
+    UNKNOWN_CONNECTION_POOL,
+    UNSUPPORTED_CLIENT_TYPE,
+    UPDATE_IN_READ_ONLY_TRANSACTION
 }
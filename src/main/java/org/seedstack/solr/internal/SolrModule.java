@@ -7,22 +7,45 @@
  */
 package org.seedstack.solr.internal;
 
+import com.google.common.base.Strings;
 import com.google.inject.PrivateModule;
+import com.google.inject.Scopes;
 import com.google.inject.name.Names;
 import com.google.inject.util.Providers;
 import org.apache.solr.client.solrj.SolrClient;
 import org.seedstack.seed.core.internal.transaction.TransactionalClassProxy;
+import org.seedstack.solr.AsyncSolrClient;
+import org.seedstack.solr.SolrBulkIndexer;
+import org.seedstack.solr.SolrConfig;
 import org.seedstack.solr.SolrExceptionHandler;
+import org.seedstack.solr.SolrMetrics;
+import org.seedstack.solr.SolrScatterGather;
+import org.seedstack.solr.SolrStreamer;
+import org.seedstack.solr.SolrTransactionListener;
 
 import java.util.Map;
 import java.util.Map.Entry;
 
 class SolrModule extends PrivateModule {
+    private final SolrConfig solrConfig;
+    private final SolrMetrics solrMetrics;
     private final Map<String, SolrClient> solrClients;
+    private final Map<String, ? extends SolrBulkIndexer> solrBulkIndexers;
+    private final Map<String, ? extends SolrStreamer> solrStreamers;
+    private final Map<String, ? extends AsyncSolrClient> asyncSolrClients;
+    private final Map<String, GroupCommitter> groupCommitters;
+    private final Map<String, TransactionTracer> transactionTracers;
     private final Map<String, Class<? extends SolrExceptionHandler>> solrExceptionHandlers;
 
-    SolrModule(Map<String, SolrClient> solrClients, Map<String, Class<? extends SolrExceptionHandler>> solrExceptionHandlers) {
+    SolrModule(SolrConfig solrConfig, SolrMetrics solrMetrics, Map<String, SolrClient> solrClients, Map<String, ? extends SolrBulkIndexer> solrBulkIndexers, Map<String, ? extends SolrStreamer> solrStreamers, Map<String, ? extends AsyncSolrClient> asyncSolrClients, Map<String, GroupCommitter> groupCommitters, Map<String, TransactionTracer> transactionTracers, Map<String, Class<? extends SolrExceptionHandler>> solrExceptionHandlers) {
+        this.solrConfig = solrConfig;
+        this.solrMetrics = solrMetrics;
         this.solrClients = solrClients;
+        this.solrBulkIndexers = solrBulkIndexers;
+        this.solrStreamers = solrStreamers;
+        this.asyncSolrClients = asyncSolrClients;
+        this.groupCommitters = groupCommitters;
+        this.transactionTracers = transactionTracers;
         this.solrExceptionHandlers = solrExceptionHandlers;
     }
 
@@ -30,15 +53,34 @@ class SolrModule extends PrivateModule {
     protected void configure() {
         SolrClientLink solrClientLink = new SolrClientLink();
         bind(SolrClient.class).toInstance(TransactionalClassProxy.create(SolrClient.class, solrClientLink));
+        if (solrConfig.getMetrics() != null) {
+            bind(SolrMetrics.class).to(solrConfig.getMetrics()).in(Scopes.SINGLETON);
+            requestInjection(solrMetrics);
+        } else {
+            bind(SolrMetrics.class).toInstance(solrMetrics);
+        }
+        if (solrConfig.getTransactionListener() != null) {
+            bind(SolrTransactionListener.class).to(solrConfig.getTransactionListener()).in(Scopes.SINGLETON);
+            for (TransactionTracer transactionTracer : transactionTracers.values()) {
+                requestInjection(transactionTracer);
+            }
+        }
+        bind(SolrScatterGather.class).toInstance(new SolrScatterGatherImpl(asyncSolrClients, solrConfig.getClients()));
+        // linked to by the resolver binding of the transaction module
+        bind(SolrTransactionMetadataResolver.class).toInstance(new SolrTransactionMetadataResolver(Strings.emptyToNull(solrConfig.getDefaultClient()), transactionTracers.keySet()));
 
         for (Entry<String, SolrClient> solrClientEntry : solrClients.entrySet()) {
             bindSolrClient(solrClientEntry.getKey(), solrClientEntry.getValue(), solrClientLink);
         }
 
         expose(SolrClient.class);
+        expose(SolrMetrics.class);
+        expose(SolrScatterGather.class);
+        expose(SolrTransactionMetadataResolver.class);
     }
 
     private void bindSolrClient(String clientName, SolrClient solrClient, SolrClientLink solrClientLink) {
+        SolrConfig.ClientConfig clientConfig = solrConfig.getClients().get(clientName);
         Class<? extends SolrExceptionHandler> unitExceptionHandlerClass = solrExceptionHandlers.get(clientName);
 
         if (unitExceptionHandlerClass != null) {
@@ -53,14 +95,29 @@ class SolrModule extends PrivateModule {
 
         bind(SolrTransactionHandler.class)
                 .annotatedWith(Names.named(clientName))
-                .toInstance(new SolrTransactionHandler(solrClientLink, solrClient));
+                .toInstance(new SolrTransactionHandler(solrClientLink, clientName, solrClient, clientConfig, groupCommitters.get(clientName), transactionTracers.get(clientName), solrMetrics));
 
         bind(SolrClient.class)
                 .annotatedWith(Names.named(clientName))
                 .toInstance(solrClient);
 
+        bind(SolrBulkIndexer.class)
+                .annotatedWith(Names.named(clientName))
+                .toInstance(solrBulkIndexers.get(clientName));
+
+        bind(SolrStreamer.class)
+                .annotatedWith(Names.named(clientName))
+                .toInstance(solrStreamers.get(clientName));
+
+        bind(AsyncSolrClient.class)
+                .annotatedWith(Names.named(clientName))
+                .toInstance(asyncSolrClients.get(clientName));
+
         expose(SolrExceptionHandler.class).annotatedWith(Names.named(clientName));
         expose(SolrTransactionHandler.class).annotatedWith(Names.named(clientName));
         expose(SolrClient.class).annotatedWith(Names.named(clientName));
+        expose(SolrBulkIndexer.class).annotatedWith(Names.named(clientName));
+        expose(SolrStreamer.class).annotatedWith(Names.named(clientName));
+        expose(AsyncSolrClient.class).annotatedWith(Names.named(clientName));
     }
 }
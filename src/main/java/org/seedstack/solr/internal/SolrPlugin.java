@@ -13,29 +13,56 @@ package org.seedstack.solr.internal;
 import com.google.common.base.Strings;
 import io.nuun.kernel.api.plugin.InitState;
 import io.nuun.kernel.api.plugin.context.InitContext;
+import org.apache.http.client.HttpClient;
+import org.apache.solr.client.solrj.ResponseParser;
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.impl.BinaryRequestWriter;
+import org.apache.solr.client.solrj.impl.BinaryResponseParser;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.ConcurrentUpdateSolrClient;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.impl.LBHttpSolrClient;
+import org.apache.solr.client.solrj.impl.NoOpResponseParser;
+import org.apache.solr.client.solrj.impl.XMLResponseParser;
+import org.apache.solr.client.solrj.request.RequestWriter;
+import org.apache.solr.client.solrj.request.SolrPing;
 import org.seedstack.seed.SeedException;
 import org.seedstack.seed.core.internal.AbstractSeedPlugin;
 import org.seedstack.solr.SolrConfig;
 import org.seedstack.solr.SolrExceptionHandler;
+import org.seedstack.solr.SolrMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This plugin manages configured Solr clients.
  */
 public class SolrPlugin extends AbstractSeedPlugin {
     private static final Logger LOGGER = LoggerFactory.getLogger(SolrPlugin.class);
+    private final Map<String, SolrClient> nativeSolrClients = new HashMap<String, SolrClient>();
     private final Map<String, SolrClient> solrClients = new HashMap<String, SolrClient>();
     private final Map<String, Class<? extends SolrExceptionHandler>> solrExceptionHandlers = new HashMap<String, Class<? extends SolrExceptionHandler>>();
+    private final Map<String, SolrBulkIndexerImpl> solrBulkIndexers = new HashMap<String, SolrBulkIndexerImpl>();
+    private final Map<String, SolrStreamerImpl> solrStreamers = new HashMap<String, SolrStreamerImpl>();
+    private final Map<String, AsyncSolrClientImpl> asyncSolrClients = new HashMap<String, AsyncSolrClientImpl>();
+    private final Map<String, LatencyAwareSolrClient> latencyAwareSolrClients = new HashMap<String, LatencyAwareSolrClient>();
+    private final Map<String, GroupCommitter> groupCommitters = new HashMap<String, GroupCommitter>();
+    private final Map<String, TransactionTracer> transactionTracers = new HashMap<String, TransactionTracer>();
+    private final Map<String, SharedConnectionPool> connectionPools = new HashMap<String, SharedConnectionPool>();
+    private SolrConfig solrConfig;
+    private SolrMetrics solrMetrics = new NoOpSolrMetrics();
+    private EmbeddedSolrClientFactory embeddedSolrClientFactory;
 
     @Override
     public String name() {
@@ -45,21 +72,78 @@ public class SolrPlugin extends AbstractSeedPlugin {
     @Override
     @SuppressWarnings("unchecked")
     public InitState initialize(InitContext initContext) {
-        SolrConfig solrConfig = getConfiguration(SolrConfig.class);
+        solrConfig = getConfiguration(SolrConfig.class);
 
         if (solrConfig.getClients().isEmpty()) {
             LOGGER.info("No Solr client configured, Solr support disabled");
             return InitState.INITIALIZED;
         }
 
+        if (solrConfig.getMetrics() != null) {
+            // the implementation itself is created by the injector
+            solrMetrics = new DeferredSolrMetrics();
+        }
+
+        for (Map.Entry<String, SolrConfig.ConnectionPoolConfig> connectionPoolEntry : solrConfig.getConnectionPools().entrySet()) {
+            connectionPools.put(connectionPoolEntry.getKey(), new SharedConnectionPool(connectionPoolEntry.getKey(), connectionPoolEntry.getValue()));
+        }
+
+        for (Map.Entry<String, SolrConfig.ClientConfig> solrClientEntry : solrConfig.getClients().entrySet()) {
+            String connectionPoolName = solrClientEntry.getValue().getConnectionPool();
+            if (connectionPoolName != null && !connectionPools.containsKey(connectionPoolName)) {
+                throw SeedException.createNew(SolrErrorCode.UNKNOWN_CONNECTION_POOL)
+                        .put("clientName", solrClientEntry.getKey())
+                        .put("connectionPool", connectionPoolName);
+            }
+        }
+
+        if (solrConfig.isParallelStartup() && solrConfig.getClients().size() > 1) {
+            startSolrClientsInParallel();
+        } else {
+            for (Map.Entry<String, SolrConfig.ClientConfig> solrClientEntry : solrConfig.getClients().entrySet()) {
+                this.nativeSolrClients.put(solrClientEntry.getKey(), startSolrClient(solrClientEntry.getKey(), solrClientEntry.getValue()));
+            }
+        }
+
         for (Map.Entry<String, SolrConfig.ClientConfig> solrClientEntry : solrConfig.getClients().entrySet()) {
             String clientName = solrClientEntry.getKey();
             SolrConfig.ClientConfig clientConfig = solrClientEntry.getValue();
+            SolrClient nativeSolrClient = this.nativeSolrClients.get(clientName);
 
-            try {
-                this.solrClients.put(clientName, buildSolrClient(clientConfig));
-            } catch (Exception e) {
-                throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_CREATE_CLIENT).put("clientName", clientName);
+            SolrClient solrClient = nativeSolrClient;
+            if (nativeSolrClient instanceof LBHttpSolrClient && clientConfig.lbHttp().isLatencyAware()) {
+                LatencyAwareSolrClient latencyAwareSolrClient = new LatencyAwareSolrClient(clientName, (LBHttpSolrClient) nativeSolrClient, clientConfig.getUrls(), clientConfig.lbHttp());
+                this.latencyAwareSolrClients.put(clientName, latencyAwareSolrClient);
+                solrClient = latencyAwareSolrClient;
+            }
+            if (clientConfig.isFastBinding()) {
+                solrClient = new FastBindingSolrClient(solrClient);
+            }
+            if (solrConfig.getMetrics() != null) {
+                HttpClientMetrics.instrument(clientName, nativeSolrClient, solrMetrics);
+                solrClient = new InstrumentedSolrClient(clientName, solrClient, solrMetrics);
+            }
+            if (clientConfig.circuitBreaker().isEnabled() || clientConfig.bulkhead().getMaxConcurrentCalls() != null) {
+                solrClient = new ResilientSolrClient(clientName, solrClient, clientConfig.circuitBreaker(), clientConfig.bulkhead(), solrMetrics);
+            }
+            if (clientConfig.queryCache().isEnabled()) {
+                SolrConfig.ClientConfig.CommitMode commitMode = clientConfig.transaction().getCommitMode();
+                if (commitMode == SolrConfig.ClientConfig.CommitMode.HARD || commitMode == SolrConfig.ClientConfig.CommitMode.SOFT) {
+                    solrClient = new CachingSolrClient(clientName, solrClient, clientConfig.queryCache(), solrMetrics);
+                } else {
+                    // updates become visible after the invalidation at the end of the transaction, caching stale results
+                    LOGGER.warn("Query cache of Solr client {} is disabled as it cannot be invalidated with commit mode {}", clientName, commitMode);
+                }
+            }
+            this.solrClients.put(clientName, solrClient);
+            this.solrBulkIndexers.put(clientName, new SolrBulkIndexerImpl(clientName, solrClient, clientConfig.bulk()));
+            this.solrStreamers.put(clientName, new SolrStreamerImpl(clientName, solrClient, clientConfig.stream()));
+            this.asyncSolrClients.put(clientName, new AsyncSolrClientImpl(clientName, solrClient, clientConfig.async()));
+            if (clientConfig.transaction().isGroupCommit()) {
+                this.groupCommitters.put(clientName, new GroupCommitter(clientName, solrClient, clientConfig.transaction(), !(nativeSolrClient instanceof CloudSolrClient)));
+            }
+            if (clientConfig.transaction().isTrace()) {
+                this.transactionTracers.put(clientName, new TransactionTracer(clientName, clientConfig.transaction().getSlowThreshold()));
             }
 
             Class<? extends SolrExceptionHandler> exceptionHandler = clientConfig.getExceptionHandler();
@@ -68,38 +152,149 @@ public class SolrPlugin extends AbstractSeedPlugin {
             }
         }
 
-        if (!Strings.isNullOrEmpty(solrConfig.getDefaultClient())) {
-            SolrTransactionMetadataResolver.defaultSolrClient = solrConfig.getDefaultClient();
-        }
-
         return InitState.INITIALIZED;
     }
 
     @Override
     public Object nativeUnitModule() {
-        return new SolrModule(solrClients, solrExceptionHandlers);
+        return new SolrModule(solrConfig, solrMetrics, solrClients, solrBulkIndexers, solrStreamers, asyncSolrClients, groupCommitters, transactionTracers, solrExceptionHandlers);
     }
 
     @Override
     public void stop() {
-        for (Map.Entry<String, SolrClient> solrClientEntry : solrClients.entrySet()) {
+        for (Map.Entry<String, SolrBulkIndexerImpl> solrBulkIndexerEntry : solrBulkIndexers.entrySet()) {
+            LOGGER.info("Draining bulk indexer of Solr client {}", solrBulkIndexerEntry.getKey());
+            solrBulkIndexerEntry.getValue().close();
+        }
+
+        for (SolrStreamerImpl solrStreamer : solrStreamers.values()) {
+            solrStreamer.close();
+        }
+
+        for (AsyncSolrClientImpl asyncSolrClient : asyncSolrClients.values()) {
+            asyncSolrClient.close();
+        }
+
+        for (GroupCommitter groupCommitter : groupCommitters.values()) {
+            groupCommitter.close();
+        }
+
+        for (LatencyAwareSolrClient latencyAwareSolrClient : latencyAwareSolrClients.values()) {
+            latencyAwareSolrClient.close();
+        }
+
+        for (Map.Entry<String, SolrClient> solrClientEntry : nativeSolrClients.entrySet()) {
+            if (embeddedSolrClientFactory != null && embeddedSolrClientFactory.isEmbedded(solrClientEntry.getValue())) {
+                // embedded clients are closed with their core container
+                continue;
+            }
             LOGGER.info("Closing Solr client {}", solrClientEntry.getKey());
             try {
+                if (solrClientEntry.getValue() instanceof ConcurrentUpdateSolrClient) {
+                    ((ConcurrentUpdateSolrClient) solrClientEntry.getValue()).blockUntilFinished();
+                }
                 solrClientEntry.getValue().close();
             } catch (Exception e) {
                 LOGGER.error(String.format("Unable to properly close Solr client %s", solrClientEntry.getKey()), e);
             }
         }
+
+        if (embeddedSolrClientFactory != null) {
+            embeddedSolrClientFactory.close();
+        }
+
+        for (Map.Entry<String, SharedConnectionPool> connectionPoolEntry : connectionPools.entrySet()) {
+            LOGGER.info("Closing Solr connection pool {}", connectionPoolEntry.getKey());
+            connectionPoolEntry.getValue().close();
+        }
+    }
+
+    private void startSolrClientsInParallel() {
+        ExecutorService executorService = Executors.newFixedThreadPool(
+                Math.min(solrConfig.getClients().size(), Runtime.getRuntime().availableProcessors() * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "solr-startup");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        try {
+            Map<String, Future<SolrClient>> futures = new HashMap<String, Future<SolrClient>>();
+            for (Map.Entry<String, SolrConfig.ClientConfig> solrClientEntry : solrConfig.getClients().entrySet()) {
+                futures.put(solrClientEntry.getKey(), executorService.submit(() -> startSolrClient(solrClientEntry.getKey(), solrClientEntry.getValue())));
+            }
+
+            RuntimeException failure = null;
+            for (Map.Entry<String, Future<SolrClient>> futureEntry : futures.entrySet()) {
+                try {
+                    this.nativeSolrClients.put(futureEntry.getKey(), futureEntry.getValue().get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_CREATE_CLIENT).put("clientName", futureEntry.getKey());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : SeedException.wrap(e.getCause(), SolrErrorCode.UNABLE_TO_CREATE_CLIENT).put("clientName", futureEntry.getKey());
+                    }
+                }
+            }
+            // clients created successfully are kept to be closed on stop
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
     }
 
-    private SolrClient buildSolrClient(SolrConfig.ClientConfig clientConfig) throws MalformedURLException {
+    private SolrClient startSolrClient(String clientName, SolrConfig.ClientConfig clientConfig) {
+        SolrClient nativeSolrClient;
+        try {
+            nativeSolrClient = buildSolrClient(clientName, clientConfig);
+        } catch (Exception e) {
+            throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_CREATE_CLIENT).put("clientName", clientName);
+        }
+        if (clientConfig.getStartup() == SolrConfig.ClientConfig.StartupMode.EAGER) {
+            warmUpSolrClient(clientName, clientConfig, nativeSolrClient);
+        }
+        return nativeSolrClient;
+    }
+
+    private void warmUpSolrClient(String clientName, SolrConfig.ClientConfig clientConfig, SolrClient nativeSolrClient) {
+        long start = System.nanoTime();
+        try {
+            String collection = null;
+            if (nativeSolrClient instanceof CloudSolrClient) {
+                ((CloudSolrClient) nativeSolrClient).connect();
+                collection = clientConfig.cloud().getDefaultCollection();
+            }
+            if (!(nativeSolrClient instanceof CloudSolrClient) || collection != null) {
+                new SolrPing().process(nativeSolrClient, collection);
+            }
+            long warmUpTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.info("Solr client {} warmed up in {} ms", clientName, warmUpTime);
+            solrMetrics.registerGauge(clientName, "startup.warmUpTime", () -> warmUpTime);
+        } catch (Exception e) {
+            LOGGER.warn(String.format("Unable to warm up Solr client %s, it will connect on first use", clientName), e);
+        }
+    }
+
+    private SolrClient buildSolrClient(String clientName, SolrConfig.ClientConfig clientConfig) throws MalformedURLException {
+        if (clientConfig.getType() != SolrConfig.ClientConfig.SolrClientType.EMBEDDED && clientConfig.getUrls().isEmpty()) {
+            throw SeedException.createNew(SolrErrorCode.NO_URL_CONFIGURED)
+                    .put("clientType", clientConfig.getType().name());
+        }
+
         switch (clientConfig.getType()) {
             case LOAD_BALANCED_HTTP:
                 return buildLBSolrClient(clientConfig);
             case HTTP:
-                return buildHttpSolrClient(clientConfig);
+                return buildHttpSolrClient(clientName, clientConfig);
             case CLOUD:
                 return buildCloudSolrClient(clientConfig);
+            case CONCURRENT_UPDATE:
+                return buildConcurrentUpdateSolrClient(clientConfig);
+            case EMBEDDED:
+                return buildEmbeddedSolrClient(clientConfig);
             default:
                 throw SeedException.createNew(SolrErrorCode.UNSUPPORTED_CLIENT_TYPE)
                         .put("clientType", clientConfig.getType().name());
@@ -107,45 +302,99 @@ public class SolrPlugin extends AbstractSeedPlugin {
     }
 
     private SolrClient buildLBSolrClient(SolrConfig.ClientConfig clientConfig) throws MalformedURLException {
-        LBHttpSolrClient lbHttpSolrClient = new LBHttpSolrClient(clientConfig.getUrls().toArray(new String[clientConfig.getUrls().size()]));
+        HttpClient sharedHttpClient = createSharedHttpClient(clientConfig);
+        String[] urls = clientConfig.getUrls().toArray(new String[clientConfig.getUrls().size()]);
+        LBHttpSolrClient lbHttpSolrClient = sharedHttpClient == null ? new LBHttpSolrClient(urls) : new LBHttpSolrClient(sharedHttpClient, urls);
         SolrConfig.ClientConfig.LBHttpClientConfig lbHttpClientConfig = clientConfig.lbHttp();
 
         Optional.ofNullable(lbHttpClientConfig.getConnectionTimeout()).ifPresent(lbHttpSolrClient::setConnectionTimeout);
         Optional.ofNullable(lbHttpClientConfig.getSocketTimeout()).ifPresent(lbHttpSolrClient::setSoTimeout);
         Optional.ofNullable(lbHttpClientConfig.getQueryParams()).ifPresent(lbHttpSolrClient::setQueryParams);
         Optional.ofNullable(lbHttpClientConfig.getAliveCheckInterval()).ifPresent(lbHttpSolrClient::setAliveCheckInterval);
+        Optional.ofNullable(clientConfig.getRequestWriter()).map(this::buildRequestWriter).ifPresent(lbHttpSolrClient::setRequestWriter);
+        Optional.ofNullable(clientConfig.getResponseParser()).map(this::buildResponseParser).ifPresent(lbHttpSolrClient::setParser);
 
         return lbHttpSolrClient;
     }
 
-    private SolrClient buildHttpSolrClient(SolrConfig.ClientConfig clientConfig) {
-        HttpSolrClient httpSolrClient = new HttpSolrClient(clientConfig.getUrls().iterator().next());
+    private SolrClient buildHttpSolrClient(String clientName, SolrConfig.ClientConfig clientConfig) {
+        HttpClient sharedHttpClient = createSharedHttpClient(clientConfig);
+        String url = clientConfig.getUrls().iterator().next();
+        HttpSolrClient httpSolrClient = sharedHttpClient == null ? new HttpSolrClient(url) : new HttpSolrClient(url, sharedHttpClient);
         SolrConfig.ClientConfig.HttpClientConfig httpClientConfig = clientConfig.http();
 
         Optional.ofNullable(httpClientConfig.getConnectionTimeout()).ifPresent(httpSolrClient::setConnectionTimeout);
         Optional.ofNullable(httpClientConfig.getSocketTimeout()).ifPresent(httpSolrClient::setSoTimeout);
         Optional.ofNullable(httpClientConfig.getQueryParams()).ifPresent(httpSolrClient::setQueryParams);
         Optional.ofNullable(httpClientConfig.getAllowCompression()).ifPresent(httpSolrClient::setAllowCompression);
-        Optional.ofNullable(httpClientConfig.getMaxConnectionsPerHost()).ifPresent(httpSolrClient::setDefaultMaxConnectionsPerHost);
         Optional.ofNullable(httpClientConfig.getFollowRedirects()).ifPresent(httpSolrClient::setFollowRedirects);
-        Optional.ofNullable(httpClientConfig.getMaxTotalConnections()).ifPresent(httpSolrClient::setMaxTotalConnections);
+        if (sharedHttpClient == null) {
+            // connection limits of a shared pool are defined by the pool itself
+            Optional.ofNullable(httpClientConfig.getMaxConnectionsPerHost()).ifPresent(httpSolrClient::setDefaultMaxConnectionsPerHost);
+            Optional.ofNullable(httpClientConfig.getMaxTotalConnections()).ifPresent(httpSolrClient::setMaxTotalConnections);
+        }
         Optional.ofNullable(httpClientConfig.getUseMultiPartHost()).ifPresent(httpSolrClient::setUseMultiPartPost);
+        Optional.ofNullable(clientConfig.getRequestWriter()).map(this::buildRequestWriter).ifPresent(httpSolrClient::setRequestWriter);
+        Optional.ofNullable(clientConfig.getResponseParser()).map(this::buildResponseParser).ifPresent(httpSolrClient::setParser);
+        if (httpClientConfig.isRequestCompression()) {
+            RequestCompressionInterceptor.install(
+                    clientName,
+                    httpSolrClient.getHttpClient(),
+                    httpClientConfig.getRequestCompressionThreshold(),
+                    httpClientConfig.getRequestCompressionLevel()
+            );
+        }
 
         return httpSolrClient;
     }
 
+    private SolrClient buildConcurrentUpdateSolrClient(SolrConfig.ClientConfig clientConfig) {
+        SolrConfig.ClientConfig.ConcurrentUpdateClientConfig concurrentUpdateClientConfig = clientConfig.concurrentUpdate();
+        ConcurrentUpdateSolrClient concurrentUpdateSolrClient = new ConcurrentUpdateSolrClient(
+                clientConfig.getUrls().iterator().next(),
+                createSharedHttpClient(clientConfig),
+                concurrentUpdateClientConfig.getQueueSize(),
+                concurrentUpdateClientConfig.getThreadCount(),
+                (ExecutorService) null,
+                concurrentUpdateClientConfig.isStreamDeletes()
+        );
+
+        Optional.ofNullable(concurrentUpdateClientConfig.getPollQueueTime()).ifPresent(concurrentUpdateSolrClient::setPollQueueTime);
+        Optional.ofNullable(concurrentUpdateClientConfig.getConnectionTimeout()).ifPresent(concurrentUpdateSolrClient::setConnectionTimeout);
+        Optional.ofNullable(concurrentUpdateClientConfig.getSocketTimeout()).ifPresent(concurrentUpdateSolrClient::setSoTimeout);
+        Optional.ofNullable(clientConfig.getRequestWriter()).map(this::buildRequestWriter).ifPresent(concurrentUpdateSolrClient::setRequestWriter);
+        Optional.ofNullable(clientConfig.getResponseParser()).map(this::buildResponseParser).ifPresent(concurrentUpdateSolrClient::setParser);
+
+        return concurrentUpdateSolrClient;
+    }
+
+    private synchronized SolrClient buildEmbeddedSolrClient(SolrConfig.ClientConfig clientConfig) {
+        if (embeddedSolrClientFactory == null) {
+            embeddedSolrClientFactory = new EmbeddedSolrClientFactory();
+        }
+        return embeddedSolrClientFactory.create(clientConfig.embedded());
+    }
+
     private CloudSolrClient buildCloudSolrClient(SolrConfig.ClientConfig clientConfig) throws MalformedURLException {
         CloudSolrClient cloudSolrClient;
         SolrConfig.ClientConfig.CloudClientConfig cloudClientConfig = clientConfig.cloud();
+        HttpClient sharedHttpClient = createSharedHttpClient(clientConfig);
 
-        if (cloudClientConfig.getLoadBalancedUrls().isEmpty()) {
-            cloudSolrClient = new CloudSolrClient(clientConfig.getUrls(), cloudClientConfig.getChroot());
-        } else {
+        if (!cloudClientConfig.getLoadBalancedUrls().isEmpty()) {
+            String[] loadBalancedUrls = cloudClientConfig.getLoadBalancedUrls().toArray(new String[cloudClientConfig.getLoadBalancedUrls().size()]);
             cloudSolrClient = new CloudSolrClient(
                     clientConfig.getUrls().iterator().next(),
-                    new LBHttpSolrClient(cloudClientConfig.getLoadBalancedUrls().toArray(new String[clientConfig.getUrls().size()])),
+                    sharedHttpClient == null ? new LBHttpSolrClient(loadBalancedUrls) : new LBHttpSolrClient(sharedHttpClient, loadBalancedUrls),
+                    cloudClientConfig.isUpdateToLeaders()
+            );
+        } else if (sharedHttpClient != null) {
+            cloudSolrClient = new CloudSolrClient(
+                    buildZkHost(clientConfig.getUrls(), cloudClientConfig.getChroot()),
+                    new LBHttpSolrClient(sharedHttpClient),
                     cloudClientConfig.isUpdateToLeaders()
             );
+        } else {
+            cloudSolrClient = new CloudSolrClient(clientConfig.getUrls(), cloudClientConfig.getChroot());
         }
 
         Optional.ofNullable(cloudClientConfig.getDefaultCollection()).ifPresent(cloudSolrClient::setDefaultCollection);
@@ -155,7 +404,49 @@ public class SolrPlugin extends AbstractSeedPlugin {
         Optional.ofNullable(cloudClientConfig.getParallelUpdates()).ifPresent(cloudSolrClient::setParallelUpdates);
         Optional.ofNullable(cloudClientConfig.getZookeeperClientTimeout()).ifPresent(cloudSolrClient::setZkClientTimeout);
         Optional.ofNullable(cloudClientConfig.getZookeeperConnectTimeout()).ifPresent(cloudSolrClient::setZkConnectTimeout);
+        Optional.ofNullable(clientConfig.getRequestWriter()).map(this::buildRequestWriter).ifPresent(cloudSolrClient::setRequestWriter);
+        Optional.ofNullable(clientConfig.getResponseParser()).map(this::buildResponseParser).ifPresent(cloudSolrClient::setParser);
 
         return cloudSolrClient;
     }
+
+    private String buildZkHost(Collection<String> zkHosts, String chroot) {
+        StringBuilder sb = new StringBuilder(String.join(",", zkHosts));
+        if (!Strings.isNullOrEmpty(chroot)) {
+            if (!chroot.startsWith("/")) {
+                sb.append('/');
+            }
+            sb.append(chroot);
+        }
+        return sb.toString();
+    }
+
+    private HttpClient createSharedHttpClient(SolrConfig.ClientConfig clientConfig) {
+        if (clientConfig.getConnectionPool() == null) {
+            return null;
+        }
+        return connectionPools.get(clientConfig.getConnectionPool()).createHttpClient();
+    }
+
+    private RequestWriter buildRequestWriter(SolrConfig.ClientConfig.RequestWriterType requestWriterType) {
+        switch (requestWriterType) {
+            case BINARY:
+                return new BinaryRequestWriter();
+            case XML:
+            default:
+                return new RequestWriter();
+        }
+    }
+
+    private ResponseParser buildResponseParser(SolrConfig.ClientConfig.ResponseParserType responseParserType) {
+        switch (responseParserType) {
+            case BINARY:
+                return new BinaryResponseParser();
+            case NO_OP:
+                return new NoOpResponseParser();
+            case XML:
+            default:
+                return new XMLResponseParser();
+        }
+    }
 }
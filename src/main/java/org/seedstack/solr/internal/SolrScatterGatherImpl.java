@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import com.google.common.base.Strings;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.seedstack.seed.SeedException;
+import org.seedstack.solr.AsyncSolrClient;
+import org.seedstack.solr.SolrConfig;
+import org.seedstack.solr.SolrScatterGather;
+import org.seedstack.solr.SolrScatterGatherResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+class SolrScatterGatherImpl implements SolrScatterGather {
+    private static final String SCORE = "score";
+    private static final int DEFAULT_ROWS = 10;
+    private static final long DEFAULT_TIMEOUT = 30000;
+    private static final Pattern SORT_CLAUSE_PATTERN = Pattern.compile("(.+?)\\s+(asc|desc)", Pattern.CASE_INSENSITIVE);
+    private final Map<String, ? extends AsyncSolrClient> asyncSolrClients;
+    private final Map<String, SolrConfig.ClientConfig> clientConfigs;
+
+    SolrScatterGatherImpl(Map<String, ? extends AsyncSolrClient> asyncSolrClients, Map<String, SolrConfig.ClientConfig> clientConfigs) {
+        this.asyncSolrClients = asyncSolrClients;
+        this.clientConfigs = clientConfigs;
+    }
+
+    @Override
+    public SolrScatterGatherResult query(SolrQuery query, Collection<String> clientNames) {
+        return query(query, clientNames, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public SolrScatterGatherResult query(SolrQuery query, Collection<String> clientNames, long timeout, TimeUnit unit) {
+        int start = query.getStart() == null ? 0 : query.getStart();
+        int rows = query.getRows() == null ? DEFAULT_ROWS : query.getRows();
+        List<SolrQuery.SortClause> sortClauses = sortClauses(query);
+        SolrQuery clientQuery = clientQuery(query, start + rows, sortClauses);
+
+        Map<String, CompletableFuture<QueryResponse>> futures = new LinkedHashMap<>();
+        for (String clientName : clientNames) {
+            AsyncSolrClient asyncSolrClient = asyncSolrClients.get(clientName);
+            if (asyncSolrClient == null) {
+                throw SeedException.createNew(SolrErrorCode.UNKNOWN_CLIENT).put("clientName", clientName);
+            }
+            if (timeout < 0) {
+                futures.put(clientName, asyncSolrClient.query(null, clientQuery, defaultTimeout(clientName), TimeUnit.MILLISECONDS));
+            } else {
+                futures.put(clientName, asyncSolrClient.query(null, clientQuery, timeout, unit));
+            }
+        }
+
+        Map<String, QueryResponse> responses = new LinkedHashMap<>();
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<QueryResponse>> futureEntry : futures.entrySet()) {
+            try {
+                responses.put(futureEntry.getKey(), futureEntry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(future -> future.cancel(true));
+                throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_SCATTER_GATHER);
+            } catch (ExecutionException e) {
+                failures.put(futureEntry.getKey(), e.getCause());
+            } catch (Exception e) {
+                failures.put(futureEntry.getKey(), e);
+            }
+        }
+
+        return new SolrScatterGatherResult(merge(responses.values(), start, rows, sortClauses), responses, failures);
+    }
+
+    private long defaultTimeout(String clientName) {
+        // a hung client must not block the merge forever, so a client without timeout gets one
+        SolrConfig.ClientConfig clientConfig = clientConfigs.get(clientName);
+        long clientTimeout = clientConfig == null ? 0 : clientConfig.async().getTimeout();
+        return clientTimeout > 0 ? clientTimeout : DEFAULT_TIMEOUT;
+    }
+
+    private SolrQuery clientQuery(SolrQuery query, int rows, List<SolrQuery.SortClause> sortClauses) {
+        // the values are copied too so the query of the caller is never changed
+        SolrQuery clientQuery = new SolrQuery();
+        for (String name : query.getParameterNames()) {
+            clientQuery.set(name, query.getParams(name).clone());
+        }
+        clientQuery.setStart(0);
+        clientQuery.setRows(rows);
+
+        // the values used for merging must be returned by each client (functions are returned under their own text)
+        String fields = query.getFields();
+        if (Strings.isNullOrEmpty(fields)) {
+            // stored fields are returned by default, but neither the score nor functions
+            List<String> sortItems = sortClauses.stream()
+                    .map(SolrQuery.SortClause::getItem)
+                    .filter(item -> item.equals(SCORE) || isFunction(item))
+                    .collect(Collectors.toList());
+            if (!sortItems.isEmpty()) {
+                clientQuery.setFields("*");
+                sortItems.forEach(clientQuery::addField);
+            }
+        } else {
+            Set<String> returnedFields = new HashSet<>(Arrays.asList(fields.split("[,\\s]+")));
+            sortClauses.stream()
+                    .map(SolrQuery.SortClause::getItem)
+                    .filter(item -> !returnedFields.contains(item))
+                    .filter(item -> !returnedFields.contains("*") || item.equals(SCORE) || isFunction(item))
+                    .forEach(clientQuery::addField);
+        }
+
+        return clientQuery;
+    }
+
+    private List<SolrQuery.SortClause> sortClauses(SolrQuery query) {
+        List<SolrQuery.SortClause> sortClauses = query.getSorts();
+        if (!sortClauses.isEmpty()) {
+            return sortClauses;
+        }
+
+        // the sort parameter was set directly instead of with sort clauses
+        String sort = query.get(CommonParams.SORT);
+        if (Strings.isNullOrEmpty(sort)) {
+            return Collections.singletonList(SolrQuery.SortClause.desc(SCORE));
+        }
+        sortClauses = new ArrayList<>();
+        int depth = 0;
+        int clauseStart = 0;
+        for (int i = 0; i <= sort.length(); i++) {
+            char c = i < sort.length() ? sort.charAt(i) : ',';
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                // commas inside the arguments of a function do not separate clauses
+                String sortClause = sort.substring(clauseStart, i).trim();
+                if (!sortClause.isEmpty()) {
+                    Matcher matcher = SORT_CLAUSE_PATTERN.matcher(sortClause);
+                    if (matcher.matches()) {
+                        sortClauses.add(new SolrQuery.SortClause(matcher.group(1), SolrQuery.ORDER.valueOf(matcher.group(2).toLowerCase())));
+                    } else {
+                        sortClauses.add(SolrQuery.SortClause.asc(sortClause));
+                    }
+                }
+                clauseStart = i + 1;
+            }
+        }
+        return sortClauses;
+    }
+
+    private SolrDocumentList merge(Collection<QueryResponse> responses, int start, int rows, List<SolrQuery.SortClause> sortClauses) {
+        SolrDocumentList merged = new SolrDocumentList();
+        merged.setStart(start);
+
+        long numFound = 0;
+        Float maxScore = null;
+        int index = 0;
+        Comparator<SolrDocument> documentComparator = documentComparator(sortClauses);
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>((cursor1, cursor2) -> {
+            int result = documentComparator.compare(cursor1.current, cursor2.current);
+            return result != 0 ? result : Integer.compare(cursor1.index, cursor2.index);
+        });
+        for (QueryResponse response : responses) {
+            SolrDocumentList results = response.getResults();
+            if (results != null) {
+                numFound += results.getNumFound();
+                if (results.getMaxScore() != null && (maxScore == null || results.getMaxScore() > maxScore)) {
+                    maxScore = results.getMaxScore();
+                }
+                Cursor cursor = new Cursor(index++, results);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+        merged.setNumFound(numFound);
+        merged.setMaxScore(maxScore);
+
+        int position = 0;
+        while (!cursors.isEmpty() && merged.size() < rows) {
+            Cursor cursor = cursors.poll();
+            if (position++ >= start) {
+                merged.add(cursor.current);
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        return merged;
+    }
+
+    private Comparator<SolrDocument> documentComparator(List<SolrQuery.SortClause> sortClauses) {
+        return (document1, document2) -> {
+            for (SolrQuery.SortClause sortClause : sortClauses) {
+                int result = compareValues(sortValue(document1, sortClause.getItem()), sortValue(document2, sortClause.getItem()), sortClause);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compareValues(Object value1, Object value2, SolrQuery.SortClause sortClause) {
+        // missing values are sorted last whatever the direction
+        if (value1 == null || value2 == null) {
+            return value1 == value2 ? 0 : value1 == null ? 1 : -1;
+        }
+        int result;
+        if (value1 instanceof Number && value2 instanceof Number && value1.getClass() != value2.getClass()) {
+            // the same field can be returned with different numeric types by different clients
+            result = compareNumbers((Number) value1, (Number) value2);
+        } else if (value1 instanceof Comparable && value1.getClass().isInstance(value2)) {
+            result = ((Comparable<Object>) value1).compareTo(value2);
+        } else {
+            throw SeedException.createNew(SolrErrorCode.INCOMPARABLE_SORT_VALUES)
+                    .put("sort", sortClause.getItem())
+                    .put("value1", value1)
+                    .put("type1", value1.getClass().getName())
+                    .put("value2", value2)
+                    .put("type2", value2.getClass().getName());
+        }
+        return sortClause.getOrder() == SolrQuery.ORDER.asc ? result : -result;
+    }
+
+    private int compareNumbers(Number number1, Number number2) {
+        if (isIntegral(number1) && isIntegral(number2)) {
+            return Long.compare(number1.longValue(), number2.longValue());
+        }
+        return Double.compare(number1.doubleValue(), number2.doubleValue());
+    }
+
+    private boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+    private boolean isFunction(String sortItem) {
+        return sortItem.indexOf('(') >= 0;
+    }
+
+    private Object sortValue(SolrDocument document, String field) {
+        Object value = document.getFieldValue(field);
+        if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            return values.isEmpty() ? null : values.iterator().next();
+        }
+        return value;
+    }
+
+    private static class Cursor {
+        private final int index;
+        private final SolrDocumentList documents;
+        private int position;
+        private SolrDocument current;
+
+        private Cursor(int index, SolrDocumentList documents) {
+            this.index = index;
+            this.documents = documents;
+        }
+
+        private boolean advance() {
+            if (position < documents.size()) {
+                current = documents.get(position++);
+                return true;
+            }
+            return false;
+        }
+    }
+}
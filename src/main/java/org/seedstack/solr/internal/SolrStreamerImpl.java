@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import com.google.common.base.Strings;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.seedstack.seed.SeedException;
+import org.seedstack.solr.SolrConfig;
+import org.seedstack.solr.SolrStreamer;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+class SolrStreamerImpl implements SolrStreamer {
+    private final String clientName;
+    private final SolrClient solrClient;
+    private final SolrConfig.ClientConfig.StreamConfig streamConfig;
+    private ExecutorService prefetchExecutor;
+
+    SolrStreamerImpl(String clientName, SolrClient solrClient, SolrConfig.ClientConfig.StreamConfig streamConfig) {
+        this.clientName = clientName;
+        this.solrClient = solrClient;
+        this.streamConfig = streamConfig;
+    }
+
+    @Override
+    public Stream<SolrDocument> stream(SolrQuery query) {
+        return stream((String) null, query);
+    }
+
+    @Override
+    public Stream<SolrDocument> stream(String collection, SolrQuery query) {
+        CursorIterator cursorIterator = new CursorIterator(collection, cursorQuery(query), streamConfig.isPrefetch() ? getPrefetchExecutor() : null);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursorIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursorIterator::close);
+    }
+
+    @Override
+    public <T> Stream<T> stream(SolrQuery query, Class<T> beanClass) {
+        return stream(null, query, beanClass);
+    }
+
+    @Override
+    public <T> Stream<T> stream(String collection, SolrQuery query, Class<T> beanClass) {
+        return stream(collection, query).map(solrDocument -> solrClient.getBinder().getBean(beanClass, solrDocument));
+    }
+
+    synchronized void close() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+            prefetchExecutor = null;
+        }
+    }
+
+    private synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, String.format("solr-stream-%s", clientName));
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return prefetchExecutor;
+    }
+
+    private SolrQuery cursorQuery(SolrQuery query) {
+        SolrQuery cursorQuery = query.getCopy();
+        cursorQuery.setStart(0);
+        cursorQuery.setRows(streamConfig.getPageSize());
+
+        // cursors require a sort ending on the unique key
+        String sort = cursorQuery.get(CommonParams.SORT);
+        String uniqueKeySort = streamConfig.getUniqueKey() + " asc";
+        if (Strings.isNullOrEmpty(sort)) {
+            cursorQuery.set(CommonParams.SORT, uniqueKeySort);
+        } else if (!sortsOnUniqueKey(sort)) {
+            cursorQuery.set(CommonParams.SORT, sort + "," + uniqueKeySort);
+        }
+
+        return cursorQuery;
+    }
+
+    private boolean sortsOnUniqueKey(String sort) {
+        for (String sortClause : sort.split(",")) {
+            String[] parts = sortClause.trim().split("\\s+");
+            if (parts.length > 0 && parts[0].equals(streamConfig.getUniqueKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class CursorIterator implements Iterator<SolrDocument> {
+        private final String collection;
+        private final SolrQuery query;
+        private final ExecutorService executorService;
+        private String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        private Iterator<SolrDocument> page = Collections.emptyIterator();
+        private Future<QueryResponse> nextPage;
+        private boolean lastPage;
+
+        private CursorIterator(String collection, SolrQuery query, ExecutorService executorService) {
+            this.collection = collection;
+            this.query = query;
+            this.executorService = executorService;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext()) {
+                if (lastPage) {
+                    return false;
+                }
+                fetchPage();
+            }
+            return true;
+        }
+
+        @Override
+        public SolrDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        private void fetchPage() {
+            QueryResponse queryResponse;
+            if (nextPage != null) {
+                try {
+                    queryResponse = nextPage.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_STREAM).put("clientName", clientName);
+                } catch (ExecutionException e) {
+                    throw SeedException.wrap(e.getCause(), SolrErrorCode.UNABLE_TO_STREAM).put("clientName", clientName);
+                } finally {
+                    nextPage = null;
+                }
+            } else {
+                queryResponse = queryPage(cursorMark);
+            }
+
+            String nextCursorMark = queryResponse.getNextCursorMark();
+            lastPage = nextCursorMark == null
+                    || nextCursorMark.equals(cursorMark)
+                    || queryResponse.getResults().size() < query.getRows();
+            cursorMark = nextCursorMark;
+            page = queryResponse.getResults().iterator();
+
+            if (!lastPage && executorService != null) {
+                String prefetchedCursorMark = cursorMark;
+                nextPage = executorService.submit(() -> queryPage(prefetchedCursorMark));
+            }
+        }
+
+        private QueryResponse queryPage(String pageCursorMark) {
+            SolrQuery pageQuery = query.getCopy();
+            pageQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, pageCursorMark);
+            try {
+                return solrClient.query(collection, pageQuery);
+            } catch (Exception e) {
+                throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_STREAM).put("clientName", clientName);
+            }
+        }
+
+        private void close() {
+            lastPage = true;
+            page = Collections.emptyIterator();
+            if (nextPage != null) {
+                nextPage.cancel(true);
+                nextPage = null;
+            }
+        }
+    }
+}
@@ -14,26 +14,38 @@ import org.apache.solr.client.solrj.SolrClient;
 import org.seedstack.seed.SeedException;
 import org.seedstack.seed.transaction.spi.TransactionHandler;
 import org.seedstack.seed.transaction.spi.TransactionMetadata;
+import org.seedstack.solr.SolrConfig;
+import org.seedstack.solr.SolrMetrics;
+import org.seedstack.solr.SolrTransactionTrace;
 
 class SolrTransactionHandler implements TransactionHandler<SolrClient> {
     private final SolrClientLink solrClientLink;
+    private final String clientName;
     private final SolrClient solrClient;
+    private final SolrConfig.ClientConfig clientConfig;
+    private final GroupCommitter groupCommitter;
+    private final TransactionTracer transactionTracer;
+    private final SolrMetrics solrMetrics;
 
-    SolrTransactionHandler(SolrClientLink solrClientLink, SolrClient solrClient) {
+    SolrTransactionHandler(SolrClientLink solrClientLink, String clientName, SolrClient solrClient, SolrConfig.ClientConfig clientConfig, GroupCommitter groupCommitter, TransactionTracer transactionTracer, SolrMetrics solrMetrics) {
         super();
         this.solrClientLink = solrClientLink;
+        this.clientName = clientName;
         this.solrClient = solrClient;
+        this.clientConfig = clientConfig;
+        this.groupCommitter = groupCommitter;
+        this.transactionTracer = transactionTracer;
+        this.solrMetrics = solrMetrics;
     }
 
     @Override
     public void doInitialize(TransactionMetadata transactionMetadata) {
-        // nothing to do
+        solrClientLink.initialize(transactionMetadata, transactionTracer != null ? SolrTransactionMetadataResolver.consumeInvokingMethod() : null);
     }
 
     @Override
     public SolrClient doCreateTransaction() {
-        solrClientLink.push(solrClient);
-        return solrClient;
+        return solrClientLink.push(solrClient, clientConfig.transaction(), transactionTracer != null);
     }
 
     @Override
@@ -43,18 +55,52 @@ class SolrTransactionHandler implements TransactionHandler<SolrClient> {
 
     @Override
     public void doCommitTransaction(SolrClient currentTransaction) {
+        long start = System.nanoTime();
+        TransactionalSolrClient transactionalSolrClient = null;
+        boolean rolledBack = false;
         try {
-            solrClientLink.pop().commit();
+            transactionalSolrClient = solrClientLink.pop();
+            if (transactionalSolrClient.isRollbackOnly()) {
+                // a participating method failed, so the outermost boundary rolls back instead of committing
+                solrMetrics.recordRollback(clientName);
+                transactionalSolrClient.rollbackTransaction();
+                trace(transactionalSolrClient, SolrTransactionTrace.Outcome.ROLLED_BACK, System.nanoTime() - start);
+                rolledBack = true;
+            } else if (groupCommitter != null) {
+                transactionalSolrClient.commitTransaction(groupCommitter);
+            } else {
+                transactionalSolrClient.commitTransaction();
+            }
         } catch (Exception e) {
+            solrMetrics.recordTransactionFailure(clientName);
+            trace(transactionalSolrClient, SolrTransactionTrace.Outcome.FAILED, System.nanoTime() - start);
             throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_COMMIT);
         }
+
+        if (rolledBack) {
+            throw SeedException.createNew(SolrErrorCode.TRANSACTION_MARKED_AS_ROLLBACK_ONLY)
+                    .put("clientName", clientName);
+        }
+        if (transactionalSolrClient.hasSentUpdates() && solrClient instanceof CachingSolrClient) {
+            ((CachingSolrClient) solrClient).invalidate();
+        }
+        long duration = System.nanoTime() - start;
+        solrMetrics.recordCommit(clientName, duration);
+        trace(transactionalSolrClient, SolrTransactionTrace.Outcome.COMMITTED, duration);
     }
 
     @Override
     public void doRollbackTransaction(SolrClient currentTransaction) {
+        solrMetrics.recordRollback(clientName);
+        long start = System.nanoTime();
+        TransactionalSolrClient transactionalSolrClient = null;
         try {
-            solrClientLink.pop().rollback();
+            transactionalSolrClient = solrClientLink.pop();
+            transactionalSolrClient.rollbackTransaction();
+            trace(transactionalSolrClient, SolrTransactionTrace.Outcome.ROLLED_BACK, System.nanoTime() - start);
         } catch (Exception e) {
+            solrMetrics.recordTransactionFailure(clientName);
+            trace(transactionalSolrClient, SolrTransactionTrace.Outcome.FAILED, System.nanoTime() - start);
             throw SeedException.wrap(e, SolrErrorCode.UNABLE_TO_ROLLBACK);
         }
     }
@@ -66,12 +112,19 @@ class SolrTransactionHandler implements TransactionHandler<SolrClient> {
 
     @Override
     public void doCleanup() {
-        // nothing to do
+        // called in a finally block for each transactional invocation, including the ones joining a transaction
+        solrClientLink.cleanup();
     }
 
     @Override
     public SolrClient getCurrentTransaction() {
-        return solrClientLink.getCurrentClient();
+        TransactionalSolrClient transactionalSolrClient = solrClientLink.getCurrentClient();
+        // only the innermost transaction can be joined, and only by methods of the same client, as it is the one
+        // targeted by the transaction-aware client
+        if (transactionalSolrClient != null && transactionalSolrClient.getSolrClient() == solrClient) {
+            return transactionalSolrClient;
+        }
+        return null;
     }
 
     @Override
@@ -81,6 +134,14 @@ class SolrTransactionHandler implements TransactionHandler<SolrClient> {
 
     @Override
     public void doMarkTransactionAsRollbackOnly(SolrClient currentTransaction) {
-        // not supported
+        if (currentTransaction instanceof TransactionalSolrClient) {
+            ((TransactionalSolrClient) currentTransaction).markRollbackOnly();
+        }
+    }
+
+    private void trace(TransactionalSolrClient transactionalSolrClient, SolrTransactionTrace.Outcome outcome, long commitTimeNanos) {
+        if (transactionTracer != null) {
+            transactionTracer.trace(transactionalSolrClient, outcome, commitTimeNanos);
+        }
     }
 }
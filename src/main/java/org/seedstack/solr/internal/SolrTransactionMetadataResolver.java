@@ -10,29 +10,79 @@
  */
 package org.seedstack.solr.internal;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.aopalliance.intercept.MethodInvocation;
 import org.seedstack.seed.transaction.spi.TransactionMetadata;
 import org.seedstack.seed.transaction.spi.TransactionMetadataResolver;
-import org.seedstack.solr.Solr;
 import org.seedstack.solr.SolrExceptionHandler;
 
+import java.lang.reflect.Method;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 class SolrTransactionMetadataResolver implements TransactionMetadataResolver {
-    static String defaultSolrClient;
+    private static final int MAX_CACHED_METHODS = 10000;
+    private static final ThreadLocal<Method> invokingMethod = new ThreadLocal<>();
+    // methods are weakly referenced so the cache never prevents classes from being unloaded
+    private final LoadingCache<Method, Optional<TransactionMetadata>> annotatedTransactionMetadata = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(MAX_CACHED_METHODS)
+            .build(CacheLoader.from((Method method) -> SolrResolver.INSTANCE.apply(method).map(solr -> buildTransactionMetadata(solr.value()))));
+    // methods without @Solr all share the metadata of the default client
+    private final TransactionMetadata defaultTransactionMetadata;
+    // the invoking method is only captured for the clients tracing their transactions
+    private final Set<String> tracedClients;
+
+    SolrTransactionMetadataResolver(String defaultSolrClient, Set<String> tracedClients) {
+        this.defaultTransactionMetadata = buildTransactionMetadata(defaultSolrClient);
+        this.tracedClients = new HashSet<>(tracedClients);
+    }
 
     @Override
     public TransactionMetadata resolve(MethodInvocation methodInvocation, TransactionMetadata defaults) {
-        Optional<Solr> solrClient = SolrResolver.INSTANCE.apply(methodInvocation.getMethod());
-
-        if (solrClient.isPresent() || SolrTransactionHandler.class.equals(defaults.getHandler())) {
-            TransactionMetadata result = new TransactionMetadata();
-            result.setHandler(SolrTransactionHandler.class);
-            result.setExceptionHandler(SolrExceptionHandler.class);
-            result.setResource(solrClient.isPresent() ? solrClient.get().value() : defaultSolrClient);
-            return result;
+        Method method = methodInvocation.getMethod();
+        Optional<TransactionMetadata> transactionMetadata = annotatedTransactionMetadata.getUnchecked(method);
+
+        if (transactionMetadata.isPresent()) {
+            captureInvokingMethod(method, transactionMetadata.get());
+            return transactionMetadata.get();
+        } else if (SolrTransactionHandler.class.equals(defaults.getHandler())) {
+            captureInvokingMethod(method, defaultTransactionMetadata);
+            return defaultTransactionMetadata;
         }
 
         return null;
     }
+
+    /**
+     * Returns and clears the method of the last resolved transaction of a traced client on the current thread. Called
+     * by the handler of traced clients when initializing each transactional invocation (joined or not), so the
+     * reference never outlives the invocation.
+     *
+     * @return the method or null if none has been captured.
+     */
+    static Method consumeInvokingMethod() {
+        Method method = invokingMethod.get();
+        if (method != null) {
+            invokingMethod.remove();
+        }
+        return method;
+    }
+
+    private void captureInvokingMethod(Method method, TransactionMetadata transactionMetadata) {
+        if (!tracedClients.isEmpty() && tracedClients.contains(transactionMetadata.getResource())) {
+            invokingMethod.set(method);
+        }
+    }
+
+    private static TransactionMetadata buildTransactionMetadata(String solrClient) {
+        TransactionMetadata result = new TransactionMetadata();
+        result.setHandler(SolrTransactionHandler.class);
+        result.setExceptionHandler(SolrExceptionHandler.class);
+        result.setResource(solrClient);
+        return result;
+    }
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.seedstack.solr.SolrTransactionListener;
+import org.seedstack.solr.SolrTransactionTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ends the traces of the transactions of a client, logs the slow ones and hands them over to the configured
+ * {@link SolrTransactionListener} if any.
+ */
+class TransactionTracer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionTracer.class);
+    private final String clientName;
+    private final long slowThresholdNanos;
+    private volatile SolrTransactionListener solrTransactionListener;
+
+    TransactionTracer(String clientName, int slowThreshold) {
+        this.clientName = clientName;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+    }
+
+    @Inject
+    void setSolrTransactionListener(SolrTransactionListener solrTransactionListener) {
+        this.solrTransactionListener = solrTransactionListener;
+    }
+
+    void trace(TransactionalSolrClient transactionalSolrClient, SolrTransactionTrace.Outcome outcome, long commitTimeNanos) {
+        if (transactionalSolrClient == null || !transactionalSolrClient.isTracing()) {
+            return;
+        }
+
+        SolrTransactionTrace solrTransactionTrace = transactionalSolrClient.endTrace(clientName, outcome, commitTimeNanos);
+        if (solrTransactionTrace.getDurationNanos() >= slowThresholdNanos) {
+            LOGGER.warn("Slow {}", solrTransactionTrace);
+        } else {
+            LOGGER.debug("{}", solrTransactionTrace);
+        }
+
+        SolrTransactionListener listener = solrTransactionListener;
+        if (listener != null) {
+            try {
+                listener.onTransactionEnd(solrTransactionTrace);
+            } catch (Exception e) {
+                LOGGER.warn("Solr transaction listener {} failed", listener.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.seedstack.seed.SeedException;
+import org.seedstack.solr.SolrConfig;
+import org.seedstack.solr.SolrMetrics;
+import org.seedstack.solr.SolrTransactionTrace;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Solr client view of a transaction. All requests are forwarded to the underlying client, update requests being
+ * adapted to the configured commit strategy on the way. When update buffering is enabled, plain update requests are
+ * kept locally until the transaction commits and then sent in batches. Transactions without updates are neither
+ * committed nor rolled back, and read-only transactions reject updates.
+ * <p>
+ * Instances are recycled by {@link SolrClientLink} from one transaction to the next on the same thread, so they must
+ * be {@link #reset(SolrClient, SolrConfig.ClientConfig.TransactionConfig, boolean) reset} before each use.
+ * </p>
+ */
+class TransactionalSolrClient extends SolrClient {
+    private final Map<String, UpdateBuffer> updateBuffers = new LinkedHashMap<>();
+    private final Set<String> updatedCollections = new LinkedHashSet<>();
+    private final int[] requestCounts = new int[SolrMetrics.RequestType.values().length];
+    private SolrClient solrClient;
+    private SolrConfig.ClientConfig.TransactionConfig transactionConfig;
+    private boolean updatesSent;
+    private boolean readOnly;
+    private boolean rollbackOnly;
+    private boolean tracing;
+    private Method method;
+    private long startTimeMillis;
+    private long startNanos;
+    private long requestTimeNanos;
+    private int documents;
+
+    void reset(SolrClient solrClient, SolrConfig.ClientConfig.TransactionConfig transactionConfig, boolean readOnly) {
+        this.solrClient = solrClient;
+        this.transactionConfig = transactionConfig;
+        this.updateBuffers.clear();
+        this.updatedCollections.clear();
+        this.updatesSent = false;
+        this.readOnly = readOnly;
+        this.rollbackOnly = false;
+        this.tracing = false;
+        this.method = null;
+    }
+
+    void startTrace(Method method) {
+        this.tracing = true;
+        this.method = method;
+        this.startTimeMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.requestTimeNanos = 0;
+        this.documents = 0;
+        Arrays.fill(requestCounts, 0);
+    }
+
+    SolrTransactionTrace endTrace(String clientName, SolrTransactionTrace.Outcome outcome, long commitTimeNanos) {
+        Map<SolrMetrics.RequestType, Integer> counts = new EnumMap<>(SolrMetrics.RequestType.class);
+        for (SolrMetrics.RequestType requestType : SolrMetrics.RequestType.values()) {
+            if (requestCounts[requestType.ordinal()] > 0) {
+                counts.put(requestType, requestCounts[requestType.ordinal()]);
+            }
+        }
+        SolrTransactionTrace solrTransactionTrace = new SolrTransactionTrace(clientName, method, outcome, startTimeMillis, System.nanoTime() - startNanos, requestTimeNanos, commitTimeNanos, counts, documents);
+        this.tracing = false;
+        this.method = null;
+        return solrTransactionTrace;
+    }
+
+    boolean isTracing() {
+        return tracing;
+    }
+
+    /**
+     * Forwards a request to the underlying client, except for buffered update requests which are kept until commit.
+     * For those, the returned response is a placeholder (status 0, QTime 0) as nothing has been sent to Solr yet:
+     * errors are only reported at commit.
+     */
+    @Override
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        if (!tracing) {
+            return doRequest(request, collection);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return doRequest(request, collection);
+        } finally {
+            requestTimeNanos += System.nanoTime() - start;
+            requestCounts[InstrumentedSolrClient.requestType(request).ordinal()]++;
+            documents += InstrumentedSolrClient.documents(request);
+            if (request instanceof UpdateRequest && ((UpdateRequest) request).getDeleteByIdMap() != null) {
+                documents += ((UpdateRequest) request).getDeleteByIdMap().size();
+            }
+        }
+    }
+
+    private NamedList<Object> doRequest(SolrRequest request, String collection) throws SolrServerException, IOException {
+        if (request instanceof AbstractUpdateRequest) {
+            if (readOnly) {
+                throw SeedException.createNew(SolrErrorCode.UPDATE_IN_READ_ONLY_TRANSACTION)
+                        .put("collection", String.valueOf(collection));
+            }
+
+            AbstractUpdateRequest updateRequest = (AbstractUpdateRequest) request;
+            int commitWithin = updateRequest.getCommitWithin();
+            if (transactionConfig.getCommitMode() == SolrConfig.ClientConfig.CommitMode.COMMIT_WITHIN && commitWithin < 0) {
+                commitWithin = transactionConfig.getCommitWithin();
+            }
+
+            updatedCollections.add(collection);
+            if (transactionConfig.isBufferUpdates() && UpdateBuffer.isBufferable(request)) {
+                updateBuffers.computeIfAbsent(collection, c -> new UpdateBuffer(transactionConfig.getBatchSize())).append((UpdateRequest) request, commitWithin);
+                return bufferedResponse();
+            }
+
+            updatesSent = true;
+            if (commitWithin != updateRequest.getCommitWithin()) {
+                return sendWithCommitWithin(updateRequest, collection, commitWithin);
+            }
+        }
+        return solrClient.request(request, collection);
+    }
+
+    /**
+     * Sends an update request with another commitWithin without changing the request of the caller.
+     */
+    private NamedList<Object> sendWithCommitWithin(AbstractUpdateRequest updateRequest, String collection, int commitWithin) throws SolrServerException, IOException {
+        if (updateRequest instanceof UpdateRequest) {
+            return solrClient.request(copy((UpdateRequest) updateRequest, commitWithin), collection);
+        }
+
+        // other update requests (content streams, ...) cannot be copied generically, so the value is restored instead
+        int originalCommitWithin = updateRequest.getCommitWithin();
+        updateRequest.setCommitWithin(commitWithin);
+        try {
+            return solrClient.request(updateRequest, collection);
+        } finally {
+            updateRequest.setCommitWithin(originalCommitWithin);
+        }
+    }
+
+    private static UpdateRequest copy(UpdateRequest source, int commitWithin) {
+        UpdateRequest copy = new UpdateRequest(source.getPath());
+        copy.setCommitWithin(commitWithin);
+        copy.setMethod(source.getMethod());
+        copy.setResponseParser(source.getResponseParser());
+        copy.setStreamingResponseCallback(source.getStreamingResponseCallback());
+        if (source.getParams() != null) {
+            copy.setParams(new ModifiableSolrParams(source.getParams()));
+        }
+        if (source.getDocumentsMap() != null) {
+            for (Map.Entry<SolrInputDocument, Map<String, Object>> document : source.getDocumentsMap().entrySet()) {
+                Map<String, Object> documentParams = document.getValue();
+                if (documentParams == null) {
+                    copy.add(document.getKey());
+                } else {
+                    copy.add(document.getKey(),
+                            (Integer) documentParams.get(UpdateRequest.COMMIT_WITHIN),
+                            (Boolean) documentParams.get(UpdateRequest.OVERWRITE));
+                }
+            }
+        }
+        if (source.getDocIterator() != null) {
+            copy.setDocIterator(source.getDocIterator());
+        }
+        if (source.getDeleteByIdMap() != null) {
+            for (Map.Entry<String, Map<String, Object>> delete : source.getDeleteByIdMap().entrySet()) {
+                Map<String, Object> deleteParams = delete.getValue();
+                if (deleteParams == null) {
+                    copy.deleteById(delete.getKey());
+                } else {
+                    copy.deleteById(delete.getKey(), (Long) deleteParams.get(UpdateRequest.VER));
+                }
+            }
+        }
+        if (source.getDeleteQuery() != null) {
+            for (String deleteQuery : source.getDeleteQuery()) {
+                copy.deleteByQuery(deleteQuery);
+            }
+        }
+        return copy;
+    }
+
+    void commitTransaction() throws SolrServerException, IOException {
+        if (isWithoutUpdates()) {
+            return;
+        }
+        flush();
+        commit(solrClient, transactionConfig.getCommitMode(), committedCollections());
+    }
+
+    void commitTransaction(GroupCommitter groupCommitter) throws SolrServerException, IOException {
+        if (isWithoutUpdates()) {
+            return;
+        }
+        Map<String, List<UpdateRequest>> bufferedUpdates = new LinkedHashMap<>();
+        for (Map.Entry<String, UpdateBuffer> updateBuffer : updateBuffers.entrySet()) {
+            if (!updateBuffer.getValue().isEmpty()) {
+                bufferedUpdates.put(updateBuffer.getKey(), new ArrayList<>(updateBuffer.getValue().getChunks()));
+            }
+        }
+        updateBuffers.clear();
+        if (!bufferedUpdates.isEmpty()) {
+            updatesSent = true;
+        }
+        groupCommitter.commit(bufferedUpdates, new LinkedHashSet<>(committedCollections()));
+    }
+
+    static void commit(SolrClient solrClient, SolrConfig.ClientConfig.CommitMode commitMode, Set<String> collections) throws SolrServerException, IOException {
+        switch (commitMode) {
+            case HARD:
+                for (String collection : collections) {
+                    solrClient.commit(collection);
+                }
+                break;
+            case SOFT:
+                for (String collection : collections) {
+                    solrClient.commit(collection, true, true, true);
+                }
+                break;
+            default:
+                // commit is left to commitWithin or to the server autoCommit
+                break;
+        }
+    }
+
+    void rollbackTransaction() throws SolrServerException, IOException {
+        updateBuffers.clear();
+        if (isWithoutUpdates()) {
+            return;
+        }
+        if (updatesSent || !transactionConfig.isBufferUpdates()) {
+            for (String collection : committedCollections()) {
+                solrClient.rollback(collection);
+            }
+        }
+    }
+
+    @Override
+    public DocumentObjectBinder getBinder() {
+        // share the binder (and its per-class cache) of the underlying client instead of one per recycled instance
+        return solrClient.getBinder();
+    }
+
+    void markRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+
+    boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    boolean hasSentUpdates() {
+        return updatesSent;
+    }
+
+    SolrClient getSolrClient() {
+        return solrClient;
+    }
+
+    public void shutdown() {
+        // the underlying client lifecycle is managed by the plugin
+    }
+
+    public void close() throws IOException {
+        // the underlying client lifecycle is managed by the plugin
+    }
+
+    private void flush() throws SolrServerException, IOException {
+        if (updateBuffers.isEmpty()) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, UpdateBuffer> updateBuffer : updateBuffers.entrySet()) {
+                for (UpdateRequest chunk : updateBuffer.getValue().getChunks()) {
+                    updatesSent = true;
+                    solrClient.request(chunk, updateBuffer.getKey());
+                }
+            }
+        } finally {
+            updateBuffers.clear();
+        }
+    }
+
+    private boolean isWithoutUpdates() {
+        // updates made outside of the transaction are only taken into account if the client is configured to
+        // commit transactions without updates (read-only transactions never commit)
+        return updatedCollections.isEmpty() && (readOnly || !transactionConfig.isCommitWithoutUpdates());
+    }
+
+    private Set<String> committedCollections() {
+        if (updatedCollections.isEmpty()) {
+            // nothing is known about the transaction, fallback on the default collection
+            updatedCollections.add(null);
+        }
+        return updatedCollections;
+    }
+
+    private NamedList<Object> bufferedResponse() {
+        NamedList<Object> responseHeader = new SimpleOrderedMap<>();
+        responseHeader.add("status", 0);
+        responseHeader.add("QTime", 0);
+        NamedList<Object> response = new NamedList<>();
+        response.add("responseHeader", responseHeader);
+        return response;
+    }
+}
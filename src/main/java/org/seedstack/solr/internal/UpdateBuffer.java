@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the update operations of a transaction for one collection into a list of {@link UpdateRequest} chunks.
+ * As Solr executes the additions of an update request before its deletions, a new chunk is started each time an
+ * addition follows a deletion so the original order of operations is preserved.
+ */
+class UpdateBuffer {
+    private final List<UpdateRequest> chunks = new ArrayList<>();
+    private final int batchSize;
+    private UpdateRequest current;
+    private int currentSize;
+    private boolean currentHasDeletes;
+
+    UpdateBuffer(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    static boolean isBufferable(SolrRequest request) {
+        if (!(request instanceof UpdateRequest)) {
+            return false;
+        }
+        UpdateRequest updateRequest = (UpdateRequest) request;
+        ModifiableSolrParams params = updateRequest.getParams();
+        return updateRequest.getAction() == null
+                && updateRequest.getDocIterator() == null
+                && (params == null || !params.getParameterNamesIterator().hasNext());
+    }
+
+    void append(UpdateRequest updateRequest) {
+        append(updateRequest, updateRequest.getCommitWithin());
+    }
+
+    /**
+     * Appends the operations of an update request, sent with the specified commitWithin instead of the one of the
+     * request (which is left untouched).
+     */
+    void append(UpdateRequest updateRequest, int commitWithin) {
+        Map<SolrInputDocument, Map<String, Object>> documents = updateRequest.getDocumentsMap();
+        if (documents != null) {
+            for (Map.Entry<SolrInputDocument, Map<String, Object>> document : documents.entrySet()) {
+                UpdateRequest chunk = chunkFor(commitWithin, true);
+                Map<String, Object> documentParams = document.getValue();
+                if (documentParams == null) {
+                    chunk.add(document.getKey());
+                } else {
+                    chunk.add(document.getKey(),
+                            (Integer) documentParams.get(UpdateRequest.COMMIT_WITHIN),
+                            (Boolean) documentParams.get(UpdateRequest.OVERWRITE));
+                }
+                currentSize++;
+            }
+        }
+
+        Map<String, Map<String, Object>> deleteById = updateRequest.getDeleteByIdMap();
+        if (deleteById != null) {
+            for (Map.Entry<String, Map<String, Object>> delete : deleteById.entrySet()) {
+                UpdateRequest chunk = chunkFor(commitWithin, false);
+                Map<String, Object> deleteParams = delete.getValue();
+                if (deleteParams == null) {
+                    chunk.deleteById(delete.getKey());
+                } else {
+                    chunk.deleteById(delete.getKey(), (Long) deleteParams.get(UpdateRequest.VER));
+                }
+                currentSize++;
+            }
+        }
+
+        List<String> deleteQueries = updateRequest.getDeleteQuery();
+        if (deleteQueries != null) {
+            for (String deleteQuery : deleteQueries) {
+                chunkFor(commitWithin, false).deleteByQuery(deleteQuery);
+                currentSize++;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    List<UpdateRequest> getChunks() {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    void clear() {
+        chunks.clear();
+        current = null;
+        currentSize = 0;
+        currentHasDeletes = false;
+    }
+
+    private UpdateRequest chunkFor(int commitWithin, boolean addition) {
+        if (current == null
+                || (addition && currentHasDeletes)
+                || currentSize >= batchSize
+                || current.getCommitWithin() != commitWithin) {
+            current = new UpdateRequest();
+            current.setCommitWithin(commitWithin);
+            currentSize = 0;
+            currentHasDeletes = false;
+            chunks.add(current);
+        }
+        if (!addition) {
+            currentHasDeletes = true;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.beans.BindingException;
+import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.client.solrj.beans.Field;
+import org.apache.solr.common.SolrDocument;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class FastDocumentObjectBinderTest {
+    private final DocumentObjectBinder defaultBinder = new DocumentObjectBinder();
+    private final DocumentObjectBinder fastBinder = FastDocumentObjectBinder.INSTANCE;
+
+    @Test
+    public void single_values_are_bound_like_solrj() {
+        SolrDocument solrDocument = new SolrDocument();
+        solrDocument.setField("id", "1");
+        solrDocument.setField("count", 3);
+        solrDocument.setField("data", new byte[]{1, 2});
+        solrDocument.setField("tags", "a");
+
+        assertSameBean(solrDocument);
+        assertThat(fastBinder.getBean(Bean.class, solrDocument).count).isEqualTo(3L);
+        assertThat(fastBinder.getBean(Bean.class, solrDocument).data).isEqualTo(ByteBuffer.wrap(new byte[]{1, 2}));
+        assertThat(fastBinder.getBean(Bean.class, solrDocument).tags).containsExactly("a");
+    }
+
+    @Test
+    public void non_list_collection_is_wrapped_like_solrj() {
+        SolrDocument solrDocument = new SolrDocument();
+        solrDocument.setField("tags", new LinkedHashSet<>(Arrays.asList("a", "b")));
+
+        assertSameBean(solrDocument);
+        assertThat(fastBinder.getBean(Bean.class, solrDocument).tags).hasSize(1);
+    }
+
+    @Test
+    public void several_values_for_a_scalar_field_fail_like_solrj() {
+        SolrDocument solrDocument = new SolrDocument();
+        solrDocument.setField("id", Arrays.asList("1", "2"));
+
+        assertBindingFails(defaultBinder, solrDocument);
+        assertBindingFails(fastBinder, solrDocument);
+    }
+
+    @Test
+    public void beans_are_converted_like_solrj() {
+        Bean bean = new Bean();
+        bean.id = "1";
+        bean.count = 3;
+        bean.tags = Arrays.asList("a", "b");
+
+        assertThat(fastBinder.toSolrInputDocument(bean).toString()).isEqualTo(defaultBinder.toSolrInputDocument(bean).toString());
+    }
+
+    private void assertSameBean(SolrDocument solrDocument) {
+        Bean expected = defaultBinder.getBean(Bean.class, solrDocument);
+        Bean actual = fastBinder.getBean(Bean.class, solrDocument);
+        assertThat(actual.id).isEqualTo(expected.id);
+        assertThat(actual.count).isEqualTo(expected.count);
+        assertThat(actual.data).isEqualTo(expected.data);
+        assertThat(actual.tags).isEqualTo(expected.tags);
+    }
+
+    private void assertBindingFails(DocumentObjectBinder binder, SolrDocument solrDocument) {
+        try {
+            binder.getBean(Bean.class, solrDocument);
+            fail("binding should have failed");
+        } catch (BindingException e) {
+            // expected
+        }
+    }
+
+    public static class Bean {
+        @Field
+        private String id;
+        @Field
+        private long count;
+        @Field
+        private ByteBuffer data;
+        @Field
+        private List<Object> tags;
+    }
+}
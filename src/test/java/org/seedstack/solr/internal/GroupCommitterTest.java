@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.After;
+import org.junit.Test;
+import org.seedstack.solr.SolrConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class GroupCommitterTest {
+    private static final String COLLECTION = "collection";
+    private final StubSolrClient stubSolrClient = new StubSolrClient();
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private GroupCommitter groupCommitter;
+    private CompletableFuture<Void> holder;
+
+    @After
+    public void tearDown() {
+        stubSolrClient.holdReleased.countDown();
+        if (groupCommitter != null) {
+            groupCommitter.close();
+        }
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void documents_of_a_transaction_failing_in_a_merged_chunk_are_not_committed() throws Exception {
+        groupCommitter = groupCommitter(true);
+
+        List<CompletableFuture<Void>> group = commitGroup();
+        assertThat(group.get(0).get(5, TimeUnit.SECONDS)).isNull();
+        assertFailed(group.get(1));
+        releaseHolder();
+
+        assertThat(stubSolrClient.committed).contains("1", "2");
+        assertThat(stubSolrClient.committed).doesNotContain("3", "4");
+        assertThat(stubSolrClient.pending).isEmpty();
+    }
+
+    @Test
+    public void whole_group_fails_when_the_client_cannot_roll_back() throws Exception {
+        groupCommitter = groupCommitter(false);
+
+        List<CompletableFuture<Void>> group = commitGroup();
+        assertFailed(group.get(0));
+        assertFailed(group.get(1));
+
+        assertThat(stubSolrClient.committed).isEmpty();
+        assertThat(stubSolrClient.rollbacks).isZero();
+    }
+
+    /**
+     * Commits two transactions grouped together, the second one failing in the middle of its documents, while a
+     * transaction committing on its own holds the client (so the next ones are grouped) until released.
+     */
+    private List<CompletableFuture<Void>> commitGroup() throws Exception {
+        holder = commitAsync("hold");
+        assertThat(stubSolrClient.holdEntered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<Void>> group = new ArrayList<>();
+        group.add(commitAsync("1", "2"));
+        group.add(commitAsync("3", "fail", "4"));
+        try {
+            CompletableFuture.allOf(group.toArray(new CompletableFuture[group.size()])).get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // checked by the caller
+        }
+        return group;
+    }
+
+    private void releaseHolder() throws Exception {
+        stubSolrClient.holdReleased.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    private void assertFailed(CompletableFuture<Void> commit) throws Exception {
+        try {
+            commit.get(5, TimeUnit.SECONDS);
+            fail("commit should have failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(SolrException.class);
+        }
+    }
+
+    private GroupCommitter groupCommitter(boolean rollbackSupported) {
+        return new GroupCommitter(
+                "test",
+                stubSolrClient,
+                new SolrConfig.ClientConfig.TransactionConfig()
+                        .setGroupCommit(true)
+                        .setGroupCommitWindow(1000)
+                        .setGroupCommitMaxTransactions(2),
+                rollbackSupported
+        );
+    }
+
+    private CompletableFuture<Void> commitAsync(String... ids) {
+        UpdateRequest updateRequest = new UpdateRequest();
+        for (String id : ids) {
+            SolrInputDocument document = new SolrInputDocument();
+            document.setField("id", id);
+            updateRequest.add(document);
+        }
+        Map<String, List<UpdateRequest>> bufferedUpdates = Collections.singletonMap(COLLECTION, Collections.singletonList(updateRequest));
+        return CompletableFuture.runAsync(() -> {
+            try {
+                groupCommitter.commit(bufferedUpdates, Collections.singleton(COLLECTION));
+            } catch (SolrServerException | IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executorService);
+    }
+
+    /**
+     * Keeps added documents pending until a commit and drops them on rollback, like a Solr core.
+     */
+    private static class StubSolrClient extends ForwardingSolrClient {
+        private final List<String> pending = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> committed = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch holdEntered = new CountDownLatch(1);
+        private final CountDownLatch holdReleased = new CountDownLatch(1);
+        private volatile int rollbacks;
+
+        private StubSolrClient() {
+            super(null);
+        }
+
+        @Override
+        public NamedList<Object> request(SolrRequest request, String collection) {
+            UpdateRequest updateRequest = (UpdateRequest) request;
+            SolrParams params = updateRequest.getParams();
+            if (params != null && params.getBool(UpdateParams.ROLLBACK, false)) {
+                rollbacks++;
+                pending.clear();
+            } else if (params != null && params.getBool(UpdateParams.COMMIT, false)) {
+                synchronized (pending) {
+                    committed.addAll(pending);
+                    pending.clear();
+                }
+            } else if (updateRequest.getDocuments() != null) {
+                for (SolrInputDocument document : updateRequest.getDocuments()) {
+                    String id = (String) document.getFieldValue("id");
+                    if ("hold".equals(id)) {
+                        hold();
+                    } else if ("fail".equals(id)) {
+                        throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "stub failure");
+                    }
+                    pending.add(id);
+                }
+            }
+            return new NamedList<>();
+        }
+
+        private void hold() {
+            holdEntered.countDown();
+            try {
+                holdReleased.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
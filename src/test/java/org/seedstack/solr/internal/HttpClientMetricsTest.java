@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.impl.XMLResponseParser;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpClientMetricsTest {
+    private static final byte[] RESPONSE = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><response>" +
+            "<lst name=\"responseHeader\"><int name=\"status\">0</int><int name=\"QTime\">0</int></lst></response>").getBytes(StandardCharsets.UTF_8);
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private HttpServer httpServer;
+    private HttpSolrClient httpSolrClient;
+
+    @Before
+    public void setUp() throws Exception {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/", exchange -> {
+            try (InputStream inputStream = exchange.getRequestBody()) {
+                requestBytes.addAndGet(ByteStreams.toByteArray(inputStream).length);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/xml; charset=UTF-8");
+            // chunked, with an unknown length
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(RESPONSE);
+            }
+        });
+        httpServer.start();
+
+        httpSolrClient = new HttpSolrClient("http://localhost:" + httpServer.getAddress().getPort() + "/solr/core0");
+        httpSolrClient.setParser(new XMLResponseParser());
+        HttpClientMetrics.instrument("test", httpSolrClient, new NoOpSolrMetrics() {
+            @Override
+            public void recordBytes(String clientName, long sent, long received) {
+                bytesSent.addAndGet(sent);
+                bytesReceived.addAndGet(received);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        httpSolrClient.close();
+        httpServer.stop(0);
+    }
+
+    @Test
+    public void streamed_messages_are_counted() throws Exception {
+        UpdateRequest updateRequest = new UpdateRequest();
+        for (int i = 0; i < 100; i++) {
+            SolrInputDocument document = new SolrInputDocument();
+            document.setField("id", String.valueOf(i));
+            updateRequest.add(document);
+        }
+
+        httpSolrClient.request(updateRequest);
+
+        assertThat(requestBytes.get()).isGreaterThan(0);
+        assertThat(bytesSent.get()).isEqualTo(requestBytes.get());
+        assertThat(bytesReceived.get()).isEqualTo(RESPONSE.length);
+    }
+}
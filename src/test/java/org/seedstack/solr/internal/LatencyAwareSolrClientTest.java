@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.impl.LBHttpSolrClient;
+import org.apache.solr.client.solrj.impl.XMLResponseParser;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.junit.After;
+import org.junit.Test;
+import org.seedstack.solr.SolrConfig;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyAwareSolrClientTest {
+    private final List<StubServer> stubServers = new ArrayList<>();
+    private LBHttpSolrClient lbHttpSolrClient;
+    private LatencyAwareSolrClient latencyAwareSolrClient;
+
+    @After
+    public void tearDown() throws Exception {
+        if (latencyAwareSolrClient != null) {
+            latencyAwareSolrClient.close();
+        }
+        if (lbHttpSolrClient != null) {
+            lbHttpSolrClient.close();
+        }
+        for (StubServer stubServer : stubServers) {
+            stubServer.stop();
+        }
+    }
+
+    @Test
+    public void faster_server_is_preferred() throws Exception {
+        StubServer fast = stubServer("fast", 0);
+        StubServer slow = stubServer("slow", 30);
+        createClient(new SolrConfig.ClientConfig.LBHttpClientConfig());
+
+        for (int i = 0; i < 40; i++) {
+            query();
+        }
+
+        assertThat(fast.requests.get()).isGreaterThan(30);
+        assertThat(latencyAwareSolrClient.averageOf(slow.url)).isGreaterThan(latencyAwareSolrClient.averageOf(fast.url));
+    }
+
+    @Test
+    public void all_servers_get_traffic() throws Exception {
+        StubServer server1 = stubServer("server1", 0);
+        StubServer server2 = stubServer("server2", 0);
+        StubServer server3 = stubServer("server3", 0);
+        createClient(new SolrConfig.ClientConfig.LBHttpClientConfig());
+
+        for (int i = 0; i < 90; i++) {
+            query();
+        }
+
+        assertThat(server1.requests.get()).isGreaterThan(0);
+        assertThat(server2.requests.get()).isGreaterThan(0);
+        assertThat(server3.requests.get()).isGreaterThan(0);
+    }
+
+    @Test
+    public void server_recovers_after_a_latency_spike() throws Exception {
+        StubServer steady = stubServer("steady", 5);
+        StubServer spiking = stubServer("spiking", 100);
+        createClient(new SolrConfig.ClientConfig.LBHttpClientConfig().setLatencyHalfLife(50));
+
+        while (spiking.requests.get() == 0) {
+            query();
+        }
+        spiking.delay = 0;
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        int spikingRequests = spiking.requests.get();
+        for (int i = 0; i < 20; i++) {
+            query();
+        }
+        assertThat(spiking.requests.get()).isGreaterThan(spikingRequests);
+        assertThat(steady.requests.get()).isGreaterThan(0);
+    }
+
+    @Test
+    public void slow_query_is_hedged_on_the_second_server() throws Exception {
+        StubServer primary = stubServer("primary", 0);
+        StubServer secondary = stubServer("secondary", 5);
+        createClient(new SolrConfig.ClientConfig.LBHttpClientConfig()
+                .setHedging(true)
+                .setHedgePercentile(50)
+                .setMinHedgeDelay(20));
+
+        // enough samples for the hedge delay to be computed, with the primary being the fastest
+        for (int i = 0; i < 64; i++) {
+            query();
+        }
+        primary.delay = 2000;
+
+        long start = System.nanoTime();
+        String server = query();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(server).isEqualTo("secondary");
+        assertThat(elapsed).isLessThan(1000);
+    }
+
+    private String query() throws Exception {
+        QueryRequest queryRequest = new QueryRequest(new SolrQuery("*:*"));
+        queryRequest.setResponseParser(new XMLResponseParser());
+        return (String) latencyAwareSolrClient.request(queryRequest, null).get("server");
+    }
+
+    private void createClient(SolrConfig.ClientConfig.LBHttpClientConfig lbHttpClientConfig) throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (StubServer stubServer : stubServers) {
+            urls.add(stubServer.url);
+        }
+        lbHttpSolrClient = new LBHttpSolrClient(urls.toArray(new String[urls.size()]));
+        latencyAwareSolrClient = new LatencyAwareSolrClient("test", lbHttpSolrClient, urls, lbHttpClientConfig.setLatencyAware(true));
+    }
+
+    private StubServer stubServer(String name, int delay) throws Exception {
+        StubServer stubServer = new StubServer(name, delay);
+        stubServers.add(stubServer);
+        return stubServer;
+    }
+
+    private static class StubServer {
+        private final HttpServer httpServer;
+        private final ExecutorService executorService = Executors.newCachedThreadPool();
+        private final String url;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int delay;
+
+        private StubServer(String name, int delay) throws Exception {
+            this.delay = delay;
+            byte[] response = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><response>" +
+                    "<lst name=\"responseHeader\"><int name=\"status\">0</int><int name=\"QTime\">0</int></lst>" +
+                    "<str name=\"server\">" + name + "</str></response>").getBytes(StandardCharsets.UTF_8);
+            httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpServer.createContext("/", exchange -> {
+                requests.incrementAndGet();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(this.delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/xml; charset=UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(response);
+                }
+            });
+            httpServer.setExecutor(executorService);
+            httpServer.start();
+            url = "http://localhost:" + httpServer.getAddress().getPort() + "/solr";
+        }
+
+        private void stop() {
+            httpServer.stop(0);
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+import org.seedstack.solr.SolrClientUnavailableException;
+import org.seedstack.solr.SolrConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ResilientSolrClientTest {
+    private final StubSolrClient stubSolrClient = new StubSolrClient();
+
+    @Test
+    public void circuit_opens_when_failure_rate_reaches_threshold() throws Exception {
+        ResilientSolrClient resilientSolrClient = resilientSolrClient(60000);
+
+        stubSolrClient.failing = true;
+        for (int i = 0; i < 3; i++) {
+            assertThat(request(resilientSolrClient)).isFalse();
+        }
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.CLOSED);
+        assertThat(request(resilientSolrClient)).isFalse();
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.OPEN);
+
+        stubSolrClient.failing = false;
+        int calls = stubSolrClient.calls.get();
+        assertRejected(resilientSolrClient);
+        assertThat(stubSolrClient.calls.get()).isEqualTo(calls);
+    }
+
+    @Test
+    public void client_errors_do_not_open_the_circuit() {
+        ResilientSolrClient resilientSolrClient = resilientSolrClient(60000);
+
+        stubSolrClient.errorCode = SolrException.ErrorCode.BAD_REQUEST;
+        stubSolrClient.failing = true;
+        for (int i = 0; i < 10; i++) {
+            assertThat(request(resilientSolrClient)).isFalse();
+        }
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.CLOSED);
+    }
+
+    @Test
+    public void successful_probe_closes_the_circuit() throws Exception {
+        ResilientSolrClient resilientSolrClient = openedCircuit();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        stubSolrClient.failing = false;
+        assertThat(request(resilientSolrClient)).isTrue();
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.CLOSED);
+        assertThat(request(resilientSolrClient)).isTrue();
+    }
+
+    @Test
+    public void failed_probe_reopens_the_circuit() throws Exception {
+        ResilientSolrClient resilientSolrClient = openedCircuit();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertThat(request(resilientSolrClient)).isFalse();
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.OPEN);
+        assertRejected(resilientSolrClient);
+    }
+
+    @Test
+    public void only_one_probe_is_let_through_when_half_open() throws Exception {
+        ResilientSolrClient resilientSolrClient = openedCircuit();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        Gate probeGate = stubSolrClient.gateNext();
+        CompletableFuture<Boolean> probe = CompletableFuture.supplyAsync(() -> request(resilientSolrClient));
+        probeGate.awaitEntered();
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.HALF_OPEN);
+        assertRejected(resilientSolrClient);
+
+        probeGate.release(false);
+        assertThat(probe.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.CLOSED);
+    }
+
+    @Test
+    public void late_response_of_a_request_started_closed_is_not_a_probe() throws Exception {
+        ResilientSolrClient resilientSolrClient = resilientSolrClient(50);
+
+        // a request started while the circuit is closed stays in flight
+        Gate lateGate = stubSolrClient.gateNext();
+        CompletableFuture<Boolean> lateRequest = CompletableFuture.supplyAsync(() -> request(resilientSolrClient));
+        lateGate.awaitEntered();
+
+        openWithFailures(resilientSolrClient);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        // the probe is in flight when the late request succeeds
+        Gate probeGate = stubSolrClient.gateNext();
+        CompletableFuture<Boolean> probe = CompletableFuture.supplyAsync(() -> request(resilientSolrClient));
+        probeGate.awaitEntered();
+        lateGate.release(false);
+        assertThat(lateRequest.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.HALF_OPEN);
+
+        probeGate.release(true);
+        assertThat(probe.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.OPEN);
+    }
+
+    private ResilientSolrClient openedCircuit() {
+        ResilientSolrClient resilientSolrClient = resilientSolrClient(50);
+        openWithFailures(resilientSolrClient);
+        assertThat(resilientSolrClient.getState()).isEqualTo(ResilientSolrClient.State.OPEN);
+        return resilientSolrClient;
+    }
+
+    private void openWithFailures(ResilientSolrClient resilientSolrClient) {
+        stubSolrClient.failing = true;
+        while (resilientSolrClient.getState() == ResilientSolrClient.State.CLOSED) {
+            request(resilientSolrClient);
+        }
+    }
+
+    private ResilientSolrClient resilientSolrClient(long openDuration) {
+        return new ResilientSolrClient(
+                "test",
+                stubSolrClient,
+                new SolrConfig.ClientConfig.CircuitBreakerConfig()
+                        .setEnabled(true)
+                        .setFailureRateThreshold(50)
+                        .setWindowSize(4)
+                        .setMinimumCalls(4)
+                        .setOpenDuration(openDuration)
+                        .setHalfOpenCalls(1),
+                new SolrConfig.ClientConfig.BulkheadConfig(),
+                new NoOpSolrMetrics()
+        );
+    }
+
+    private boolean request(ResilientSolrClient resilientSolrClient) {
+        try {
+            resilientSolrClient.request(new QueryRequest(new SolrQuery("*:*")), null);
+            return true;
+        } catch (SolrClientUnavailableException e) {
+            throw new AssertionError("request should not have been rejected", e);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void assertRejected(ResilientSolrClient resilientSolrClient) throws Exception {
+        try {
+            resilientSolrClient.request(new QueryRequest(new SolrQuery("*:*")), null);
+            fail("request should have been rejected");
+        } catch (SolrClientUnavailableException e) {
+            assertThat(e.getReason()).isEqualTo(SolrClientUnavailableException.Reason.CIRCUIT_OPEN);
+        }
+    }
+
+    private static class StubSolrClient extends ForwardingSolrClient {
+        private final AtomicReference<Gate> nextGate = new AtomicReference<>();
+        private volatile boolean failing;
+        private volatile SolrException.ErrorCode errorCode = SolrException.ErrorCode.SERVER_ERROR;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private StubSolrClient() {
+            super(null);
+        }
+
+        @Override
+        public NamedList<Object> request(SolrRequest request, String collection) {
+            calls.incrementAndGet();
+            Gate gate = nextGate.getAndSet(null);
+            boolean failure = gate == null ? failing : gate.pass();
+            if (failure) {
+                throw new SolrException(errorCode, "stub failure");
+            }
+            return new NamedList<>();
+        }
+
+        /**
+         * Holds the next request until the gate is released.
+         */
+        private Gate gateNext() {
+            Gate gate = new Gate();
+            nextGate.set(gate);
+            return gate;
+        }
+    }
+
+    private static class Gate {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean failure;
+
+        private boolean pass() {
+            entered.countDown();
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return failure;
+        }
+
+        private void awaitEntered() throws InterruptedException {
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        private void release(boolean failure) {
+            this.failure = failure;
+            released.countDown();
+        }
+    }
+}
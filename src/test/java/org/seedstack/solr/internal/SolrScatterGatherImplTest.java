@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+import org.seedstack.seed.SeedException;
+import org.seedstack.solr.AsyncSolrClient;
+import org.seedstack.solr.SolrScatterGatherResult;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class SolrScatterGatherImplTest {
+    private final Map<String, StubAsyncSolrClient> asyncSolrClients = new LinkedHashMap<>();
+    private final SolrScatterGatherImpl solrScatterGather = new SolrScatterGatherImpl(asyncSolrClients, Collections.emptyMap());
+
+    @Test
+    public void mixed_numeric_types_are_merged_in_order() {
+        stubClient("client1", document("1", "count", 1), document("3", "count", 30));
+        stubClient("client2", document("2", "count", 20L), document("4", "count", 40.5));
+
+        SolrScatterGatherResult result = solrScatterGather.query(new SolrQuery("*:*").setSort("count", SolrQuery.ORDER.asc), asyncSolrClients.keySet());
+
+        assertThat(ids(result)).containsExactly("1", "2", "3", "4");
+    }
+
+    @Test
+    public void function_sort_is_merged_on_its_returned_value() {
+        stubClient("client1", document("1", "sum(a,b)", 9), document("3", "sum(a,b)", 3));
+        stubClient("client2", document("2", "sum(a,b)", 5), document("4", "sum(a,b)", 1));
+        SolrQuery query = new SolrQuery("*:*");
+        query.set(CommonParams.SORT, "sum(a,b) desc, id asc");
+        query.setFields("id");
+
+        SolrScatterGatherResult result = solrScatterGather.query(query, asyncSolrClients.keySet());
+
+        assertThat(ids(result)).containsExactly("1", "2", "3", "4");
+        assertThat(asyncSolrClients.get("client1").params.get(CommonParams.FL)).isEqualTo("id,sum(a,b)");
+    }
+
+    @Test
+    public void incomparable_values_fail_the_merge() {
+        stubClient("client1", document("1", "value", 1));
+        stubClient("client2", document("2", "value", "a"));
+
+        try {
+            solrScatterGather.query(new SolrQuery("*:*").setSort("value", SolrQuery.ORDER.asc), asyncSolrClients.keySet());
+            fail("merge should have failed");
+        } catch (SeedException e) {
+            assertThat(e.getErrorCode()).isEqualTo(SolrErrorCode.INCOMPARABLE_SORT_VALUES);
+        }
+    }
+
+    private List<String> ids(SolrScatterGatherResult result) {
+        return result.getResults().stream().map(document -> (String) document.getFieldValue("id")).collect(Collectors.toList());
+    }
+
+    private void stubClient(String clientName, SolrDocument... documents) {
+        SolrDocumentList results = new SolrDocumentList();
+        results.addAll(Arrays.asList(documents));
+        results.setNumFound(documents.length);
+        asyncSolrClients.put(clientName, new StubAsyncSolrClient(results));
+    }
+
+    private SolrDocument document(String id, String field, Object value) {
+        SolrDocument document = new SolrDocument();
+        document.setField("id", id);
+        document.setField(field, value);
+        return document;
+    }
+
+    private static class StubAsyncSolrClient implements AsyncSolrClient {
+        private final SolrDocumentList results;
+        private SolrParams params;
+
+        private StubAsyncSolrClient(SolrDocumentList results) {
+            this.results = results;
+        }
+
+        @Override
+        public CompletableFuture<QueryResponse> query(SolrParams params) {
+            return query(null, params);
+        }
+
+        @Override
+        public CompletableFuture<QueryResponse> query(String collection, SolrParams params) {
+            return query(collection, params, 0, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public CompletableFuture<QueryResponse> query(String collection, SolrParams params, long timeout, TimeUnit unit) {
+            this.params = params;
+            NamedList<Object> response = new NamedList<>();
+            response.add("response", results);
+            QueryResponse queryResponse = new QueryResponse();
+            queryResponse.setResponse(response);
+            return CompletableFuture.completedFuture(queryResponse);
+        }
+
+        @Override
+        public CompletableFuture<UpdateResponse> add(Collection<SolrInputDocument> documents) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<UpdateResponse> add(String collection, Collection<SolrInputDocument> documents) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<UpdateResponse> add(String collection, Collection<SolrInputDocument> documents, long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<UpdateResponse> deleteByQuery(String query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<UpdateResponse> deleteByQuery(String collection, String query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<UpdateResponse> deleteByQuery(String collection, String query, long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2013-2016, The SeedStack authors <http://seedstack.org>
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.seedstack.solr.internal;
+
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UpdateBufferTest {
+    @Test
+    public void chunks_are_limited_to_batch_size() {
+        UpdateBuffer updateBuffer = new UpdateBuffer(2);
+        updateBuffer.append(new UpdateRequest().add(document("1")).add(document("2")).add(document("3")));
+        updateBuffer.append(new UpdateRequest().add(document("4")).add(document("5")));
+
+        List<UpdateRequest> chunks = updateBuffer.getChunks();
+        assertThat(chunks).hasSize(3);
+        assertThat(chunks.get(0).getDocuments()).hasSize(2);
+        assertThat(chunks.get(1).getDocuments()).hasSize(2);
+        assertThat(chunks.get(2).getDocuments()).hasSize(1);
+    }
+
+    @Test
+    public void addition_following_deletion_starts_a_new_chunk() {
+        UpdateBuffer updateBuffer = new UpdateBuffer(100);
+        updateBuffer.append(new UpdateRequest().add(document("1")));
+        updateBuffer.append(new UpdateRequest().deleteById("1"));
+        updateBuffer.append(new UpdateRequest().deleteByQuery("name:Gerard"));
+        updateBuffer.append(new UpdateRequest().add(document("1")));
+
+        List<UpdateRequest> chunks = updateBuffer.getChunks();
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).getDocuments()).hasSize(1);
+        assertThat(chunks.get(0).getDeleteById()).containsExactly("1");
+        assertThat(chunks.get(0).getDeleteQuery()).containsExactly("name:Gerard");
+        assertThat(chunks.get(1).getDocuments()).hasSize(1);
+        assertThat(chunks.get(1).getDeleteById()).isNull();
+    }
+
+    @Test
+    public void deletion_following_addition_stays_in_the_chunk() {
+        UpdateBuffer updateBuffer = new UpdateBuffer(100);
+        updateBuffer.append(new UpdateRequest().add(document("1")).deleteById("2"));
+        updateBuffer.append(new UpdateRequest().deleteById("3"));
+
+        assertThat(updateBuffer.getChunks()).hasSize(1);
+        assertThat(updateBuffer.getChunks().get(0).getDeleteById()).containsExactly("2", "3");
+    }
+
+    @Test
+    public void commit_within_change_starts_a_new_chunk_without_changing_the_request() {
+        UpdateBuffer updateBuffer = new UpdateBuffer(100);
+        UpdateRequest updateRequest = new UpdateRequest().add(document("1"));
+        updateBuffer.append(updateRequest, 1000);
+        updateBuffer.append(new UpdateRequest().add(document("2")), 2000);
+
+        List<UpdateRequest> chunks = updateBuffer.getChunks();
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0).getCommitWithin()).isEqualTo(1000);
+        assertThat(chunks.get(1).getCommitWithin()).isEqualTo(2000);
+        assertThat(updateRequest.getCommitWithin()).isEqualTo(-1);
+    }
+
+    @Test
+    public void clear_empties_the_buffer() {
+        UpdateBuffer updateBuffer = new UpdateBuffer(100);
+        updateBuffer.append(new UpdateRequest().add(document("1")));
+        updateBuffer.clear();
+
+        assertThat(updateBuffer.isEmpty()).isTrue();
+        updateBuffer.append(new UpdateRequest().add(document("2")));
+        assertThat(updateBuffer.getChunks()).hasSize(1);
+    }
+
+    private SolrInputDocument document(String id) {
+        SolrInputDocument document = new SolrInputDocument();
+        document.setField("id", id);
+        return document;
+    }
+}